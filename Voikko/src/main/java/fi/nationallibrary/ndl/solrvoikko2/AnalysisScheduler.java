@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.puimula.libvoikko.VoikkoException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scheduler that runs analysis calls on a fixed set of threads and always
+ * serves interactive (query time) work before bulk (index time) work
+ *
+ * Both priorities have their own bounded queue; submitting to a full queue
+ * blocks the caller. The throughput of bulk work can optionally be capped.
+ * Interactive work can only overtake bulk work when calls have to queue,
+ * i.e. when there are fewer threads than concurrent callers or bulk work is
+ * capped, so the thread count should stay small.
+ *
+ * Schedulers are shared by name between filter factories, so that the index
+ * and query analyzers of a core compete for the same threads. The settings
+ * of a shared scheduler are taken from the factory that creates it first.
+ * Every scheduler reference must be released with {@link #release()}; the
+ * threads are stopped when the last reference is released.
+ */
+public class AnalysisScheduler {
+  /**
+   * Priority of analysis work
+   */
+  public enum Priority {
+    INTERACTIVE, BULK
+  }
+
+  /**
+   * Default number of analysis threads
+   */
+  public static final int DEFAULT_THREADS = 2;
+
+  /**
+   * Default queue size per priority
+   */
+  public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final Map<String, AnalysisScheduler> schedulers = new HashMap<String, AnalysisScheduler>();
+
+  private final String name;
+  private final String settings;
+  private final int queueSize;
+  private final long bulkIntervalNanos;
+  private final ArrayDeque<FutureTask<?>> interactive;
+  private final ArrayDeque<FutureTask<?>> bulk;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition interactiveNotFull = lock.newCondition();
+  private final Condition bulkNotFull = lock.newCondition();
+  private final List<Thread> threads = new ArrayList<Thread>();
+  private long nextBulkNanos;
+  private boolean shutdown = false;
+  // Guarded by the class lock
+  private int refCount = 1;
+
+  /**
+   * @param name                Name used for the threads
+   * @param threads             Number of analysis threads
+   * @param queueSize           Maximum number of waiting calls per priority
+   * @param bulkTokensPerSecond Maximum bulk calls per second, 0 for unlimited
+   */
+  public AnalysisScheduler(String name, int threads, int queueSize, int bulkTokensPerSecond) {
+    if (threads < 1 || queueSize < 1) {
+      throw new IllegalArgumentException("threads and queueSize must be at least 1");
+    }
+    this.name = name;
+    this.settings = describeSettings(threads, queueSize, bulkTokensPerSecond);
+    this.queueSize = queueSize;
+    this.bulkIntervalNanos = bulkTokensPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / bulkTokensPerSecond : 0;
+    this.interactive = new ArrayDeque<FutureTask<?>>(queueSize);
+    this.bulk = new ArrayDeque<FutureTask<?>>(queueSize);
+    // nanoTime may be negative, so the first bulk call is allowed from now on
+    this.nextBulkNanos = System.nanoTime();
+    for (int i = 0; i < threads; i++) {
+      Thread thread = new Thread(this::runTasks, "voikko-" + name + "-" + i);
+      thread.setDaemon(true);
+      this.threads.add(thread);
+      thread.start();
+    }
+  }
+
+  /**
+   * Get a shared scheduler, creating it if necessary. Each call must be
+   * paired with a call to {@link #release()}.
+   *
+   * @param name                Scheduler name
+   * @param threads             Number of analysis threads
+   * @param queueSize           Maximum number of waiting calls per priority
+   * @param bulkTokensPerSecond Maximum bulk calls per second, 0 for unlimited
+   *
+   * @return Scheduler
+   */
+  public static synchronized AnalysisScheduler getShared(String name, int threads, int queueSize, int bulkTokensPerSecond) {
+    AnalysisScheduler scheduler = schedulers.get(name);
+    if (scheduler == null) {
+      log.info("creating analysis scheduler " + name + " with " + threads + " threads");
+      scheduler = new AnalysisScheduler(name, threads, queueSize, bulkTokensPerSecond);
+      schedulers.put(name, scheduler);
+      return scheduler;
+    }
+    final String settings = describeSettings(threads, queueSize, bulkTokensPerSecond);
+    if (!settings.equals(scheduler.settings)) {
+      log.warn("analysis scheduler " + name + " already exists with settings " + scheduler.settings
+        + ", ignoring settings " + settings);
+    }
+    ++scheduler.refCount;
+    return scheduler;
+  }
+
+  private static String describeSettings(int threads, int queueSize, int bulkTokensPerSecond) {
+    return "threads=" + threads + ", queueSize=" + queueSize + ", bulkTokensPerSecond=" + bulkTokensPerSecond;
+  }
+
+  /**
+   * Release a reference to the scheduler and stop the threads when the last
+   * reference is released. Calls still waiting in the queues are cancelled.
+   */
+  public void release() {
+    synchronized (AnalysisScheduler.class) {
+      if (refCount <= 0 || --refCount > 0) {
+        return;
+      }
+      if (schedulers.get(name) == this) {
+        schedulers.remove(name);
+      }
+    }
+    lock.lock();
+    try {
+      shutdown = true;
+      for (FutureTask<?> task: interactive) {
+        task.cancel(false);
+      }
+      for (FutureTask<?> task: bulk) {
+        task.cancel(false);
+      }
+      interactive.clear();
+      bulk.clear();
+      interactiveNotFull.signalAll();
+      bulkNotFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    for (Thread thread: threads) {
+      thread.interrupt();
+    }
+  }
+
+  /**
+   * Run a call on the scheduler threads and wait for the result
+   *
+   * @param priority Priority
+   * @param call     Call to run
+   *
+   * @return Result of the call
+   */
+  public <T> T execute(Priority priority, Callable<T> call) {
+    FutureTask<T> task = new FutureTask<T>(call);
+    try {
+      submit(priority, task);
+      return task.get();
+    } catch (CancellationException e) {
+      throw new VoikkoException("Analysis scheduler " + name + " has been shut down");
+    } catch (InterruptedException e) {
+      task.cancel(false);
+      Thread.currentThread().interrupt();
+      throw new VoikkoException("Interrupted while waiting for analysis");
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new VoikkoException(String.valueOf(cause));
+    }
+  }
+
+  private void submit(Priority priority, FutureTask<?> task) throws InterruptedException {
+    final boolean isInteractive = priority == Priority.INTERACTIVE;
+    final ArrayDeque<FutureTask<?>> queue = isInteractive ? interactive : bulk;
+    lock.lockInterruptibly();
+    try {
+      while (!shutdown && queue.size() >= queueSize) {
+        (isInteractive ? interactiveNotFull : bulkNotFull).await();
+      }
+      if (shutdown) {
+        task.cancel(false);
+        return;
+      }
+      queue.add(task);
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Take the next task, preferring interactive ones
+   *
+   * @return Task
+   * @throws InterruptedException
+   */
+  private FutureTask<?> take() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (true) {
+        if (!interactive.isEmpty()) {
+          interactiveNotFull.signal();
+          return interactive.poll();
+        }
+        long waitNanos = -1;
+        if (!bulk.isEmpty()) {
+          final long now = System.nanoTime();
+          if (bulkIntervalNanos == 0 || now - nextBulkNanos >= 0) {
+            nextBulkNanos = now + bulkIntervalNanos;
+            bulkNotFull.signal();
+            return bulk.poll();
+          }
+          waitNanos = nextBulkNanos - now;
+        }
+        if (waitNanos < 0) {
+          notEmpty.await();
+        } else {
+          notEmpty.awaitNanos(waitNanos);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void runTasks() {
+    while (true) {
+      try {
+        take().run();
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.nationallibrary.ndl.solrvoikko2;
+
+/**
+ * Timing of a single analysis call
+ *
+ * Separates the time spent in the analysis itself from the time the call
+ * waited before it, e.g. in a scheduler queue.
+ */
+public class AnalysisTiming {
+  /**
+   * Time in nanoseconds spent waiting before the analysis started
+   */
+  public long waitNanos;
+
+  /**
+   * Time in nanoseconds spent in the analysis
+   */
+  public long analysisNanos;
+}
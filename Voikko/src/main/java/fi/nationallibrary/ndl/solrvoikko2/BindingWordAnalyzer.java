@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.puimula.libvoikko.Analysis;
+import org.puimula.libvoikko.Voikko;
+
+/**
+ * Word analyzer that uses the libvoikko Java binding
+ */
+public class BindingWordAnalyzer implements WordAnalyzer {
+
+  private static final String BASEFORM_ATTR = "BASEFORM";
+  private static final String WORDBASES_ATTR = "WORDBASES";
+
+  private final Voikko voikko;
+
+  public BindingWordAnalyzer(Voikko voikko) {
+    this.voikko = voikko;
+  }
+
+  @Override
+  public List<WordAnalysis> analyze(String word) {
+    List<Analysis> analysisList = voikko.analyze(word);
+    List<WordAnalysis> result = new ArrayList<WordAnalysis>(analysisList.size());
+    for (Analysis analysis: analysisList) {
+      result.add(new WordAnalysis(analysis.get(BASEFORM_ATTR), analysis.get(WORDBASES_ATTR)));
+    }
+    return result;
+  }
+
+  @Override
+  public void terminate() {
+    voikko.terminate();
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.nationallibrary.ndl.solrvoikko2;
+
+/**
+ * Count-Min sketch for estimating string frequencies in constant memory
+ *
+ * Estimates never undercount; they may overcount when keys collide in every
+ * row. Each row uses its own index derived from a 64-bit hash of the
+ * characters (double hashing), so keys that collide in one row rarely
+ * collide in the others. The overcount grows with the number of added keys
+ * divided by the width. The sketch is not thread-safe, callers must
+ * synchronize.
+ */
+public class CountMinSketch {
+  /**
+   * Default number of counters per row
+   */
+  public static final int DEFAULT_WIDTH = 8192;
+
+  private static final int DEPTH = 4;
+
+  private final int mask;
+  private final long[][] table;
+
+  public CountMinSketch() {
+    this(DEFAULT_WIDTH);
+  }
+
+  /**
+   * @param width Number of counters per row, rounded up to a power of two
+   */
+  public CountMinSketch(int width) {
+    int size = Integer.highestOneBit(Math.max(width, 16) - 1) << 1;
+    this.mask = size - 1;
+    this.table = new long[DEPTH][size];
+  }
+
+  /**
+   * Increment the counters of a key
+   *
+   * @param key Key
+   *
+   * @return Frequency estimate after the increment
+   */
+  public long add(String key) {
+    final long hash = hash(key);
+    long min = Long.MAX_VALUE;
+    for (int row = 0; row < DEPTH; row++) {
+      long count = ++table[row][indexOf(hash, row)];
+      if (count < min) {
+        min = count;
+      }
+    }
+    return min;
+  }
+
+  /**
+   * Get the frequency estimate of a key
+   *
+   * @param key Key
+   *
+   * @return Frequency estimate
+   */
+  public long estimate(String key) {
+    final long hash = hash(key);
+    long min = Long.MAX_VALUE;
+    for (int row = 0; row < DEPTH; row++) {
+      long count = table[row][indexOf(hash, row)];
+      if (count < min) {
+        min = count;
+      }
+    }
+    return min;
+  }
+
+  /**
+   * Combine the two halves of the hash into an index for a row
+   */
+  private int indexOf(long hash, int row) {
+    final int h1 = (int) hash;
+    // Odd step so that the rows never map a key to the same counter sequence
+    final int h2 = (int) (hash >>> 32) | 1;
+    return (h1 + row * h2) & mask;
+  }
+
+  /**
+   * 64-bit FNV-1a hash of the characters with a final avalanche step
+   */
+  private static long hash(String key) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < key.length(); i++) {
+      h ^= key.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
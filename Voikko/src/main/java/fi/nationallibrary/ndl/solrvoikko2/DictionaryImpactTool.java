@@ -0,0 +1,331 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/**
+ * Dictionary upgrade impact analysis tool
+ */
+
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.WordlistLoader;
+import org.apache.lucene.analysis.core.KeywordTokenizer;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.MultiTerms;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.puimula.libvoikko.Voikko;
+
+/**
+ * Finds the words whose Voikko filter output changes between two dictionaries
+ *
+ * Reads the terms of an index field, expands each term with the old and the
+ * new dictionary and writes the words with differing expansions to standard
+ * output as "word TAB old TAB new". A Solr query selecting the documents that
+ * contain any of the words is written to the query file, so that only those
+ * documents need to be reindexed.
+ *
+ * The field should contain the original words, i.e. be analyzed with the
+ * same tokenizer but without the Voikko filter (e.g. a copyField). The filter
+ * options, including the classifier options, must match the ones used in the
+ * schema, or words the filter skips will be reported too.
+ *
+ * Usage: DictionaryImpactTool [options] &lt;indexDir&gt; &lt;field&gt; &lt;oldDictionaryPath&gt; &lt;newDictionaryPath&gt;
+ *
+ * Options: --language=fi-x-morphoid --analysisBackend=binding --expandCompounds=false
+ * --allAnalysis=false --minWordSize=3 --minSubwordSize=2 --maxSubwordSize=25
+ * --classifyWords=false --classifierThreshold=0.47 --maxAcronymLength=4 --maxWordSize=50
+ * --protected=[file] --ignoreCase=false --threads=[processors] --query=impact-query.txt
+ */
+public class DictionaryImpactTool {
+
+  private static final int BATCH_SIZE = 1000;
+
+  private static final List<String> END = Collections.emptyList();
+
+  private final String language;
+  private final String analysisBackend;
+  private final boolean expandCompounds;
+  private final boolean allAnalysis;
+  private final int minWordSize;
+  private final int minSubwordSize;
+  private final int maxSubwordSize;
+  private final FinnishWordClassifier classifier;
+  private final Function<String, WordAnalyzer> analyzerFactory;
+
+  /**
+   * Expands single terms with the Voikko filter
+   */
+  private final class Expander {
+    private final WordAnalyzer analyzer;
+    private final Tokenizer tokenizer = new KeywordTokenizer();
+    private final VoikkoFilter filter;
+
+    Expander(String dictionaryPath) {
+      analyzer = analyzerFactory.apply(dictionaryPath);
+      filter = new VoikkoFilter(tokenizer, analyzer, expandCompounds, minWordSize, minSubwordSize,
+        maxSubwordSize, allAnalysis, null, 0, null, classifier);
+    }
+
+    String expand(String term) throws IOException {
+      StringBuilder result = new StringBuilder();
+      tokenizer.setReader(new StringReader(term));
+      filter.reset();
+      while (filter.incrementToken()) {
+        if (result.length() > 0) {
+          result.append(' ');
+        }
+        result.append(filter.termAtt).append(':').append(filter.posIncAtt.getPositionIncrement());
+      }
+      filter.end();
+      filter.close();
+      return result.toString();
+    }
+
+    void terminate() {
+      analyzer.terminate();
+    }
+  }
+
+  public DictionaryImpactTool(Map<String, String> options) throws IOException {
+    this(options, null);
+  }
+
+  /**
+   * @param options         Options
+   * @param analyzerFactory Function creating a word analyzer for a dictionary
+   *                        path, or null to use the analysisBackend option
+   *
+   * @throws IOException
+   */
+  DictionaryImpactTool(Map<String, String> options, Function<String, WordAnalyzer> analyzerFactory) throws IOException {
+    language = options.getOrDefault("language", "fi-x-morphoid");
+    analysisBackend = options.getOrDefault("analysisBackend", "binding");
+    expandCompounds = Boolean.parseBoolean(options.getOrDefault("expandCompounds", "false"));
+    allAnalysis = Boolean.parseBoolean(options.getOrDefault("allAnalysis", "false"));
+    minWordSize = Integer.parseInt(options.getOrDefault("minWordSize", String.valueOf(VoikkoFilter.DEFAULT_MIN_WORD_SIZE)));
+    minSubwordSize = Integer.parseInt(options.getOrDefault("minSubwordSize", String.valueOf(VoikkoFilter.DEFAULT_MIN_SUBWORD_SIZE)));
+    maxSubwordSize = Integer.parseInt(options.getOrDefault("maxSubwordSize", String.valueOf(VoikkoFilter.DEFAULT_MAX_SUBWORD_SIZE)));
+    if (Boolean.parseBoolean(options.getOrDefault("classifyWords", "false"))) {
+      CharArraySet protectedWords = null;
+      if (options.containsKey("protected")) {
+        final boolean ignoreCase = Boolean.parseBoolean(options.getOrDefault("ignoreCase", "false"));
+        try (Reader reader = Files.newBufferedReader(Paths.get(options.get("protected")), StandardCharsets.UTF_8)) {
+          protectedWords = WordlistLoader.getWordSet(reader, "#", new CharArraySet(16, ignoreCase));
+        }
+      }
+      classifier = new FinnishWordClassifier(
+        Float.parseFloat(options.getOrDefault("classifierThreshold", String.valueOf(FinnishWordClassifier.DEFAULT_THRESHOLD))),
+        Integer.parseInt(options.getOrDefault("maxAcronymLength", String.valueOf(FinnishWordClassifier.DEFAULT_MAX_ACRONYM_LENGTH))),
+        Integer.parseInt(options.getOrDefault("maxWordSize", String.valueOf(FinnishWordClassifier.DEFAULT_MAX_WORD_SIZE))),
+        protectedWords);
+    } else {
+      classifier = null;
+    }
+    if (analyzerFactory != null) {
+      this.analyzerFactory = analyzerFactory;
+    } else if ("native".equals(analysisBackend)) {
+      this.analyzerFactory = path -> new NativeWordAnalyzer(language, path, expandCompounds, allAnalysis);
+    } else {
+      this.analyzerFactory = path -> new BindingWordAnalyzer(new Voikko(language, path));
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = new HashMap<String, String>();
+    List<String> params = new ArrayList<String>();
+    for (String arg: args) {
+      if (arg.startsWith("--") && arg.indexOf('=') != -1) {
+        options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+      } else {
+        params.add(arg);
+      }
+    }
+    if (params.size() != 4) {
+      System.err.println("Usage: DictionaryImpactTool [options] <indexDir> <field> <oldDictionaryPath> <newDictionaryPath>");
+      System.exit(1);
+    }
+    final int threads = Integer.parseInt(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+    final String field = params.get(1);
+
+    DictionaryImpactTool tool = new DictionaryImpactTool(options);
+    List<String> changed = tool.findChangedWords(params.get(0), field, params.get(2), params.get(3), threads, System.out);
+    Collections.sort(changed);
+
+    final String queryFile = options.getOrDefault("query", "impact-query.txt");
+    try (Writer writer = Files.newBufferedWriter(Paths.get(queryFile), StandardCharsets.UTF_8)) {
+      writer.write(buildQuery(field, changed));
+      writer.write('\n');
+    }
+    System.err.println(changed.size() + " changed words, query written to " + queryFile);
+  }
+
+  /**
+   * Compare expansions of all terms of a field
+   *
+   * @param indexDir          Index directory
+   * @param field             Field name
+   * @param oldDictionaryPath Path of the old dictionary
+   * @param newDictionaryPath Path of the new dictionary
+   * @param threads           Number of analysis threads
+   * @param out               Stream for changed word reports
+   *
+   * @return Changed words
+   * @throws Exception
+   */
+  public List<String> findChangedWords(String indexDir, String field, String oldDictionaryPath, String newDictionaryPath,
+      int threads, PrintStream out) throws Exception {
+    try (Directory directory = FSDirectory.open(Paths.get(indexDir))) {
+      return findChangedWords(directory, field, oldDictionaryPath, newDictionaryPath, threads, out);
+    }
+  }
+
+  /**
+   * Compare expansions of all terms of a field
+   *
+   * @param directory         Index directory
+   * @param field             Field name
+   * @param oldDictionaryPath Path of the old dictionary
+   * @param newDictionaryPath Path of the new dictionary
+   * @param threads           Number of analysis threads
+   * @param out               Stream for changed word reports
+   *
+   * @return Changed words
+   * @throws Exception
+   */
+  public List<String> findChangedWords(Directory directory, String field, String oldDictionaryPath, String newDictionaryPath,
+      int threads, PrintStream out) throws Exception {
+    final BlockingQueue<List<String>> queue = new ArrayBlockingQueue<List<String>>(threads * 2);
+    final List<String> changed = Collections.synchronizedList(new ArrayList<String>());
+    final AtomicLong termCount = new AtomicLong();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<Void>> futures = new ArrayList<Future<Void>>();
+    for (int i = 0; i < threads; i++) {
+      futures.add(executor.submit(() -> {
+        Expander oldExpander = new Expander(oldDictionaryPath);
+        Expander newExpander = new Expander(newDictionaryPath);
+        try {
+          List<String> batch;
+          while ((batch = queue.take()) != END) {
+            for (String term: batch) {
+              String oldExpansion = oldExpander.expand(term);
+              String newExpansion = newExpander.expand(term);
+              if (!oldExpansion.equals(newExpansion)) {
+                changed.add(term);
+                synchronized (out) {
+                  out.println(term + "\t" + oldExpansion + "\t" + newExpansion);
+                }
+              }
+            }
+            if (termCount.addAndGet(batch.size()) % (BATCH_SIZE * 100) == 0) {
+              System.err.println(termCount.get() + " terms processed");
+            }
+          }
+        } finally {
+          oldExpander.terminate();
+          newExpander.terminate();
+        }
+        return null;
+      }));
+    }
+
+    try (DirectoryReader reader = DirectoryReader.open(directory)) {
+      Terms terms = MultiTerms.getTerms(reader, field);
+      if (terms != null) {
+        TermsEnum termsEnum = terms.iterator();
+        List<String> batch = new ArrayList<String>(BATCH_SIZE);
+        BytesRef term;
+        while ((term = termsEnum.next()) != null) {
+          batch.add(term.utf8ToString());
+          if (batch.size() >= BATCH_SIZE) {
+            put(queue, batch, futures);
+            batch = new ArrayList<String>(BATCH_SIZE);
+          }
+        }
+        if (!batch.isEmpty()) {
+          put(queue, batch, futures);
+        }
+      }
+    } finally {
+      for (int i = 0; i < threads; i++) {
+        put(queue, END, futures);
+      }
+      executor.shutdown();
+    }
+    for (Future<Void> future: futures) {
+      future.get();
+    }
+    System.err.println(termCount.get() + " terms processed");
+    return changed;
+  }
+
+  /**
+   * Build a Solr query that matches documents containing any of the words
+   *
+   * @param field Field name
+   * @param words Words
+   *
+   * @return Query string
+   */
+  public static String buildQuery(String field, List<String> words) {
+    return "{!terms f=" + field + "}" + String.join(",", words);
+  }
+
+  /**
+   * Add a batch to the queue unless all workers have already failed
+   */
+  private static void put(BlockingQueue<List<String>> queue, List<String> batch, List<Future<Void>> futures) throws Exception {
+    while (!queue.offer(batch, 1, TimeUnit.SECONDS)) {
+      boolean allDone = true;
+      for (Future<Void> future: futures) {
+        if (!future.isDone()) {
+          allDone = false;
+          break;
+        }
+      }
+      if (allDone) {
+        // Propagate the failure of the first worker
+        futures.get(0).get();
+        return;
+      }
+    }
+  }
+}
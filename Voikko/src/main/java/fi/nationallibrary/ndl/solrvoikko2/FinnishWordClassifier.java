@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import org.apache.lucene.analysis.CharArraySet;
+
+/**
+ * Cheap classifier that rejects tokens that are clearly not Finnish words
+ *
+ * Token rules depend on the original form of the token and reject short
+ * all-uppercase tokens (acronyms), tokens with uppercase letters after
+ * lowercase ones, overly long tokens and protected words, so that they pass
+ * through the filter unchanged.
+ *
+ * Word rules score the lowercase word with phonotactic rules over its
+ * character bigrams. Each finding adds a penalty and the score is
+ * 1 / (1 + penalty):
+ *
+ * - no vowels: score 0
+ * - final consonant other than n, s, t, l or r, run of four or more
+ *   consonants (per extra consonant), letter repeated three times: 1.
+ *   A run of four is allowed at a compound boundary where a part ending in
+ *   n, s, t, l or r is followed by str, spr or skr (e.g. kehitysstrategia)
+ * - digraph foreign to Finnish (th, sh, ch, ...), vowel harmony violation
+ *   in a short word: 0.5
+ * - letter used mainly in loanwords (b, c, f, g, ...; at most 0.5 in total),
+ *   initial consonant cluster: 0.25
+ *
+ * Loanwords such as grafiikka or shakki therefore stay well above the
+ * default threshold, which rejects words with a penalty over 1.
+ */
+public class FinnishWordClassifier {
+  /**
+   * Default minimum score for a word to be analyzed. Scores for the penalty
+   * steps of 0.25 are 0.5, 0.44, 0.4, ..., so this rejects penalties over 1
+   * without sitting on a boundary.
+   */
+  public static final float DEFAULT_THRESHOLD = 0.47f;
+
+  /**
+   * Default maximum length of an all-uppercase token considered an acronym
+   */
+  public static final int DEFAULT_MAX_ACRONYM_LENGTH = 4;
+
+  /**
+   * Default maximum length of a token to analyze
+   */
+  public static final int DEFAULT_MAX_WORD_SIZE = 50;
+
+  private static final String VOWELS = "aeiouyäöå";
+  private static final String LOAN_LETTERS = "bcfgqwxzå";
+  private static final String FINAL_CONSONANTS = "nstlr";
+  private static final String[] FOREIGN_BIGRAMS = { "th", "sh", "ch", "ck", "ph", "wh", "gh", "qu" };
+  // Initial clusters of loanwords that often start the second part of a compound
+  private static final String[] COMPOUND_INITIAL_CLUSTERS = { "str", "spr", "skr" };
+  // Compounds commonly mix front and back vowels, so only check short words
+  private static final int MAX_HARMONY_CHECK_LENGTH = 8;
+
+  private final float threshold;
+  private final int maxAcronymLength;
+  private final int maxWordSize;
+  private final CharArraySet protectedWords;
+
+  /**
+   * @param threshold        Minimum score for a word to be analyzed
+   * @param maxAcronymLength Maximum length of an all-uppercase token to skip, 0 to disable
+   * @param maxWordSize      Maximum length of a token to analyze
+   * @param protectedWords   Words that are never analyzed or null
+   */
+  public FinnishWordClassifier(float threshold, int maxAcronymLength, int maxWordSize, CharArraySet protectedWords) {
+    this.threshold = threshold;
+    this.maxAcronymLength = maxAcronymLength;
+    this.maxWordSize = maxWordSize;
+    this.protectedWords = protectedWords;
+  }
+
+  /**
+   * Check whether a token should be analyzed
+   *
+   * @param term Token text in original case
+   *
+   * @return true if the token looks like a Finnish word
+   */
+  public boolean accept(String term) {
+    return acceptToken(term) && acceptWord(term.toLowerCase());
+  }
+
+  /**
+   * Check the rules that depend on the original form of the token
+   *
+   * @param term Token text in original case
+   *
+   * @return true if the token may be analyzed
+   */
+  public boolean acceptToken(String term) {
+    final int length = term.length();
+    if (length > maxWordSize) {
+      return false;
+    }
+    if (protectedWords != null && protectedWords.contains(term)) {
+      return false;
+    }
+    boolean allUpper = true;
+    boolean seenLower = false;
+    for (int i = 0; i < length; i++) {
+      final char c = term.charAt(i);
+      if (Character.isUpperCase(c)) {
+        if (seenLower) {
+          // Mixed case such as iPhone or OCR noise
+          return false;
+        }
+      } else {
+        allUpper = false;
+        seenLower = true;
+      }
+    }
+    return !allUpper || length > maxAcronymLength;
+  }
+
+  /**
+   * Check the phonotactic score of a lowercase word
+   *
+   * @param word Lowercase word
+   *
+   * @return true if the word looks Finnish
+   */
+  public boolean acceptWord(String word) {
+    return threshold <= 0 || score(word) >= threshold;
+  }
+
+  /**
+   * Compute a phonotactic score for a lowercase word
+   *
+   * @param word Lowercase word
+   *
+   * @return Score between 0 and 1, higher is more Finnish-like
+   */
+  public static float score(String word) {
+    final int length = word.length();
+    float penalty = 0;
+    float loanPenalty = 0;
+    boolean hasVowel = false;
+    boolean hasBack = false;
+    boolean hasFront = false;
+    int consonantRun = 0;
+    boolean initialCluster = true;
+    for (int i = 0; i < length; i++) {
+      final char c = word.charAt(i);
+      final boolean vowel = VOWELS.indexOf(c) != -1;
+      if (vowel) {
+        hasVowel = true;
+        hasBack |= c == 'a' || c == 'o' || c == 'u';
+        hasFront |= c == 'ä' || c == 'ö' || c == 'y';
+        consonantRun = 0;
+        initialCluster = false;
+      } else {
+        ++consonantRun;
+        if (consonantRun == 2 && initialCluster) {
+          penalty += 0.25f;
+        } else if (consonantRun > 4 || (consonantRun == 4 && !isCompoundBoundary(word, i))) {
+          penalty += 1;
+        }
+      }
+      if (LOAN_LETTERS.indexOf(c) != -1 && !(c == 'g' && i > 0 && word.charAt(i - 1) == 'n')) {
+        loanPenalty += 0.25f;
+      }
+      if (i > 0) {
+        final char prev = word.charAt(i - 1);
+        for (String bigram: FOREIGN_BIGRAMS) {
+          if (bigram.charAt(0) == prev && bigram.charAt(1) == c) {
+            penalty += 0.5f;
+            break;
+          }
+        }
+        if (i > 1 && c == prev && c == word.charAt(i - 2)) {
+          penalty += 1;
+        }
+      }
+    }
+    if (!hasVowel) {
+      return 0;
+    }
+    penalty += Math.min(loanPenalty, 0.5f);
+    final char last = word.charAt(length - 1);
+    if (VOWELS.indexOf(last) == -1 && FINAL_CONSONANTS.indexOf(last) == -1) {
+      penalty += 1;
+    }
+    if (hasBack && hasFront && length <= MAX_HARMONY_CHECK_LENGTH) {
+      penalty += 0.5f;
+    }
+    return 1 / (1 + penalty);
+  }
+
+  /**
+   * Check whether a run of four consonants ending at the given position is a
+   * compound boundary such as s|str
+   */
+  private static boolean isCompoundBoundary(String word, int end) {
+    if (FINAL_CONSONANTS.indexOf(word.charAt(end - 3)) == -1) {
+      return false;
+    }
+    for (String cluster: COMPOUND_INITIAL_CLUSTERS) {
+      if (word.startsWith(cluster, end - 2)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
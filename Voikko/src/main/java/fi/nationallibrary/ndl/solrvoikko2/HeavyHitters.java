@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Tracker for the most frequent strings in a stream
+ *
+ * Frequencies are estimated with a Count-Min sketch and the current top
+ * entries are kept in a min-heap, so memory use is bounded regardless of
+ * the number of distinct strings seen.
+ */
+public class HeavyHitters {
+  /**
+   * Entry in the top list
+   */
+  public static final class Entry {
+    public final String key;
+    private long count;
+
+    Entry(String key, long count) {
+      this.key = key;
+      this.count = count;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + count;
+    }
+  }
+
+  private final int capacity;
+  private final CountMinSketch sketch;
+  private final Map<String, Entry> entries;
+  private final PriorityQueue<Entry> heap;
+
+  /**
+   * @param capacity Number of top entries to keep
+   */
+  public HeavyHitters(int capacity) {
+    this(capacity, CountMinSketch.DEFAULT_WIDTH);
+  }
+
+  /**
+   * @param capacity    Number of top entries to keep
+   * @param sketchWidth Number of counters per row in the frequency sketch
+   */
+  public HeavyHitters(int capacity, int sketchWidth) {
+    this.capacity = capacity;
+    this.sketch = new CountMinSketch(sketchWidth);
+    this.entries = new HashMap<String, Entry>();
+    this.heap = new PriorityQueue<Entry>(Math.max(capacity, 1),
+      (a, b) -> Long.compare(a.count, b.count));
+  }
+
+  /**
+   * Record an occurrence of a key
+   *
+   * @param key Key
+   */
+  public synchronized void add(String key) {
+    long estimate = sketch.add(key);
+    Entry entry = entries.get(key);
+    if (entry != null) {
+      heap.remove(entry);
+      entry.count = estimate;
+      heap.add(entry);
+      return;
+    }
+    if (heap.size() < capacity) {
+      entry = new Entry(key, estimate);
+      entries.put(key, entry);
+      heap.add(entry);
+    } else if (capacity > 0 && heap.peek().count < estimate) {
+      entries.remove(heap.poll().key);
+      entry = new Entry(key, estimate);
+      entries.put(key, entry);
+      heap.add(entry);
+    }
+  }
+
+  /**
+   * Get the frequency estimate of a key
+   *
+   * @param key Key
+   *
+   * @return Frequency estimate
+   */
+  public synchronized long estimate(String key) {
+    return sketch.estimate(key);
+  }
+
+  /**
+   * Get the current top entries
+   *
+   * @return Entries in descending order of frequency
+   */
+  public synchronized List<Entry> getTop() {
+    List<Entry> result = new ArrayList<Entry>(heap.size());
+    for (Entry entry: heap) {
+      result.add(new Entry(entry.key, entry.count));
+    }
+    result.sort((a, b) -> Long.compare(b.count, a.count));
+    return result;
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.puimula.libvoikko.VoikkoException;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.PointerByReference;
+
+/**
+ * Word analyzer that calls the libvoikko C API directly
+ *
+ * Unlike the libvoikko Java binding, which converts every attribute of every
+ * analysis into a map, this only fetches BASEFORM and, if requested,
+ * WORDBASES of the first or all analyses. The input word and the attribute
+ * names are passed to the library in reusable native buffers.
+ *
+ * Instances are thread-safe; calls are serialized like in the Java binding.
+ */
+public class NativeWordAnalyzer implements WordAnalyzer {
+
+  /**
+   * Direct mapping of the used libvoikko functions
+   */
+  private static final class Lib {
+    private static final String[] LIBRARY_NAMES = { "libvoikko.so.1", "voikko-1", "voikko" };
+
+    static {
+      Native.register(Lib.class, loadLibrary());
+    }
+
+    private static NativeLibrary loadLibrary() {
+      for (String name: LIBRARY_NAMES) {
+        try {
+          return NativeLibrary.getInstance(name);
+        } catch (UnsatisfiedLinkError e) {
+          // Try next name
+        }
+      }
+      throw new UnsatisfiedLinkError("Could not load the native component of libvoikko");
+    }
+
+    static native Pointer voikkoInit(PointerByReference error, byte[] langcode, byte[] path);
+    static native void voikkoTerminate(Pointer handle);
+    static native Pointer voikkoAnalyzeWordCstr(Pointer handle, Pointer word);
+    static native void voikko_free_mor_analysis(Pointer analyses);
+    static native Pointer voikko_mor_analysis_value_cstr(Pointer analysis, Pointer key);
+    static native void voikko_free_mor_analysis_value_cstr(Pointer value);
+  }
+
+  private static final Memory BASEFORM_KEY = nativeString("BASEFORM");
+  private static final Memory WORDBASES_KEY = nativeString("WORDBASES");
+
+  private final boolean wordbases;
+  private final boolean allAnalyses;
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+    .onMalformedInput(CodingErrorAction.REPLACE)
+    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private ByteBuffer encodeBuffer = ByteBuffer.allocate(256);
+  private Memory wordBuffer = new Memory(256);
+  private Pointer handle;
+
+  /**
+   * @param language       Dictionary language
+   * @param dictionaryPath Dictionary path or null for default
+   * @param wordbases      Whether to fetch the WORDBASES attribute
+   * @param allAnalyses    Whether to fetch all analyses instead of the first one
+   */
+  public NativeWordAnalyzer(String language, String dictionaryPath, boolean wordbases, boolean allAnalyses) {
+    this.wordbases = wordbases;
+    this.allAnalyses = allAnalyses;
+    PointerByReference error = new PointerByReference();
+    handle = Lib.voikkoInit(error, toCString(language), dictionaryPath != null ? toCString(dictionaryPath) : null);
+    if (handle == null) {
+      throw new VoikkoException(error.getValue().getString(0, "UTF-8"));
+    }
+  }
+
+  @Override
+  public synchronized List<WordAnalysis> analyze(String word) {
+    if (handle == null) {
+      throw new VoikkoException("Attempt to use Voikko instance after terminate() was called");
+    }
+    if (word.indexOf('\0') != -1) {
+      return Collections.emptyList();
+    }
+    Pointer analyses = Lib.voikkoAnalyzeWordCstr(handle, encode(word));
+    if (analyses == null) {
+      return Collections.emptyList();
+    }
+    try {
+      List<WordAnalysis> result = new ArrayList<WordAnalysis>(allAnalyses ? 4 : 1);
+      for (int i = 0; ; i++) {
+        Pointer analysis = analyses.getPointer((long) i * Pointer.SIZE);
+        if (analysis == null) {
+          break;
+        }
+        result.add(new WordAnalysis(
+          getValue(analysis, BASEFORM_KEY),
+          wordbases ? getValue(analysis, WORDBASES_KEY) : null
+        ));
+        if (!allAnalyses) {
+          break;
+        }
+      }
+      return result;
+    } finally {
+      Lib.voikko_free_mor_analysis(analyses);
+    }
+  }
+
+  @Override
+  public synchronized void terminate() {
+    if (handle != null) {
+      Lib.voikkoTerminate(handle);
+      handle = null;
+    }
+  }
+
+  /**
+   * Encode a word as a null-terminated UTF-8 string in the reusable buffer
+   *
+   * @param word Word
+   *
+   * @return Native buffer
+   */
+  private Pointer encode(String word) {
+    final int maxLength = (int) (word.length() * encoder.maxBytesPerChar()) + 1;
+    if (encodeBuffer.capacity() < maxLength) {
+      encodeBuffer = ByteBuffer.allocate(maxLength);
+    }
+    encodeBuffer.clear();
+    encoder.reset();
+    encoder.encode(CharBuffer.wrap(word), encodeBuffer, true);
+    encoder.flush(encodeBuffer);
+    encodeBuffer.put((byte) 0);
+    final int length = encodeBuffer.position();
+    if (wordBuffer.size() < length) {
+      wordBuffer = new Memory(encodeBuffer.capacity());
+    }
+    wordBuffer.write(0, encodeBuffer.array(), 0, length);
+    return wordBuffer;
+  }
+
+  private static String getValue(Pointer analysis, Memory key) {
+    Pointer value = Lib.voikko_mor_analysis_value_cstr(analysis, key);
+    if (value == null) {
+      return null;
+    }
+    try {
+      return value.getString(0, "UTF-8");
+    } finally {
+      Lib.voikko_free_mor_analysis_value_cstr(value);
+    }
+  }
+
+  private static byte[] toCString(String s) {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    byte[] result = new byte[bytes.length + 1];
+    System.arraycopy(bytes, 0, result, 0, bytes.length);
+    return result;
+  }
+
+  private static Memory nativeString(String s) {
+    byte[] bytes = toCString(s);
+    Memory memory = new Memory(bytes.length);
+    memory.write(0, bytes, 0, bytes.length);
+    return memory;
+  }
+}
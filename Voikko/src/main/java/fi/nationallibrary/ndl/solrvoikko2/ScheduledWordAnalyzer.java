@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.util.List;
+
+/**
+ * Word analyzer that runs another analyzer through an {@link AnalysisScheduler}
+ *
+ * Takes over the scheduler reference and releases it on terminate.
+ */
+public class ScheduledWordAnalyzer implements WordAnalyzer {
+
+  private final WordAnalyzer analyzer;
+  private final AnalysisScheduler scheduler;
+  private final AnalysisScheduler.Priority priority;
+
+  public ScheduledWordAnalyzer(WordAnalyzer analyzer, AnalysisScheduler scheduler, AnalysisScheduler.Priority priority) {
+    this.analyzer = analyzer;
+    this.scheduler = scheduler;
+    this.priority = priority;
+  }
+
+  @Override
+  public List<WordAnalysis> analyze(String word) {
+    return scheduler.execute(priority, () -> analyzer.analyze(word));
+  }
+
+  /**
+   * Analyze a word, timing the wrapped analyzer separately from the time
+   * spent in the scheduler queue and bulk throttle
+   */
+  @Override
+  public List<WordAnalysis> analyze(String word, AnalysisTiming timing) {
+    final long submitted = System.nanoTime();
+    return scheduler.execute(priority, () -> {
+      final long start = System.nanoTime();
+      timing.waitNanos = start - submitted;
+      try {
+        return analyzer.analyze(word);
+      } finally {
+        timing.analysisNanos = System.nanoTime() - start;
+      }
+    });
+  }
+
+  @Override
+  public List<List<WordAnalysis>> analyzeAll(List<String> words) {
+    return scheduler.execute(priority, () -> analyzer.analyzeAll(words));
+  }
+
+  @Override
+  public void terminate() {
+    analyzer.terminate();
+    scheduler.release();
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Per-factory diagnostics about cache misses and analysis cost
+ *
+ * Keeps track of the most frequent cache misses, the most frequent words that
+ * were evicted from the cache and later analyzed again, and the slowest calls
+ * to Voikko analysis.
+ */
+public class VoikkoDiagnostics {
+  /**
+   * A single timed analysis call
+   */
+  public static final class SlowAnalysis {
+    public final String term;
+    public final long nanos;
+
+    SlowAnalysis(String term, long nanos) {
+      this.term = term;
+      this.nanos = nanos;
+    }
+
+    @Override
+    public String toString() {
+      return term + "=" + (nanos / 1000) / 1000f + "ms";
+    }
+  }
+
+  private final int topSize;
+  private final HeavyHitters misses;
+  private final HeavyHitters reloads;
+  // Recently evicted keys, oldest first
+  private final LinkedHashMap<String, Boolean> evicted;
+  private final int slowestSize;
+  private final PriorityQueue<SlowAnalysis> slowest;
+  // Fastest time in a full reservoir, allows skipping the lock for most calls
+  private volatile long slowestThreshold = -1;
+
+  /**
+   * @param topSize     Number of most frequent misses and reloads to keep
+   * @param slowestSize Number of slowest analysis calls to keep
+   * @param evictedSize Number of recently evicted keys to remember
+   */
+  public VoikkoDiagnostics(int topSize, int slowestSize, int evictedSize) {
+    this(topSize, slowestSize, evictedSize, CountMinSketch.DEFAULT_WIDTH);
+  }
+
+  /**
+   * @param topSize     Number of most frequent misses and reloads to keep
+   * @param slowestSize Number of slowest analysis calls to keep
+   * @param evictedSize Number of recently evicted keys to remember
+   * @param sketchWidth Number of counters per row in the frequency sketches
+   */
+  public VoikkoDiagnostics(int topSize, int slowestSize, int evictedSize, int sketchWidth) {
+    this.topSize = topSize;
+    // Only allocate the sketches when frequencies are tracked
+    this.misses = new HeavyHitters(topSize, topSize > 0 ? sketchWidth : 0);
+    this.reloads = new HeavyHitters(topSize, topSize > 0 ? sketchWidth : 0);
+    this.evicted = new LinkedHashMap<String, Boolean>(16, 0.75f, false) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+        return size() > evictedSize;
+      }
+    };
+    this.slowestSize = slowestSize;
+    this.slowest = new PriorityQueue<SlowAnalysis>(Math.max(slowestSize, 1),
+      (a, b) -> Long.compare(a.nanos, b.nanos));
+  }
+
+  /**
+   * Record a cache miss
+   *
+   * @param key Cache key
+   */
+  public void recordMiss(String key) {
+    if (topSize <= 0) {
+      return;
+    }
+    misses.add(key);
+    boolean reloaded;
+    synchronized (evicted) {
+      reloaded = evicted.remove(key) != null;
+    }
+    if (reloaded) {
+      reloads.add(key);
+    }
+  }
+
+  /**
+   * Record eviction of a cache entry
+   *
+   * @param key Cache key
+   */
+  public void recordEviction(String key) {
+    if (topSize <= 0) {
+      return;
+    }
+    synchronized (evicted) {
+      evicted.put(key, Boolean.TRUE);
+    }
+  }
+
+  /**
+   * Record the duration of an analysis call
+   *
+   * @param term  Analyzed term
+   * @param nanos Duration in nanoseconds
+   */
+  public void recordAnalysis(String term, long nanos) {
+    if (slowestSize <= 0 || nanos <= slowestThreshold) {
+      return;
+    }
+    synchronized (slowest) {
+      if (slowest.size() >= slowestSize) {
+        if (slowest.peek().nanos >= nanos) {
+          return;
+        }
+        slowest.poll();
+      }
+      slowest.add(new SlowAnalysis(term, nanos));
+      if (slowest.size() >= slowestSize) {
+        slowestThreshold = slowest.peek().nanos;
+      }
+    }
+  }
+
+  /**
+   * Get the most frequent cache misses
+   *
+   * @return Entries in descending order of frequency
+   */
+  public List<HeavyHitters.Entry> getTopMisses() {
+    return misses.getTop();
+  }
+
+  /**
+   * Get the most frequent misses of recently evicted words
+   *
+   * @return Entries in descending order of frequency
+   */
+  public List<HeavyHitters.Entry> getTopReloads() {
+    return reloads.getTop();
+  }
+
+  /**
+   * Get the slowest analysis calls
+   *
+   * @return Calls in descending order of duration
+   */
+  public List<SlowAnalysis> getSlowestAnalyses() {
+    List<SlowAnalysis> result;
+    synchronized (slowest) {
+      result = new ArrayList<SlowAnalysis>(slowest);
+    }
+    result.sort((a, b) -> Long.compare(b.nanos, a.nanos));
+    return result;
+  }
+
+  /**
+   * Create a single-line report of the collected data
+   *
+   * @return Report
+   */
+  @Override
+  public String toString() {
+    return "topMisses=" + getTopMisses()
+      + ", topReloads=" + getTopReloads()
+      + ", slowestAnalyses=" + getSlowestAnalyses();
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.lang.invoke.MethodHandles;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.util.TokenFilterFactory;
+import org.apache.solr.analysis.TokenizerChain;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.handler.RequestHandlerBase;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.schema.FieldType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Request handler that displays Voikko filter diagnostics
+ *
+ * Lists the most frequent cache misses and reloads as well as the slowest
+ * analysis calls for every Voikko filter in the schema that has diagnostics
+ * enabled. With log=true the same data is also written to the Solr log.
+ *
+ * Example configuration in solrconfig.xml:
+ *
+ *   &lt;requestHandler name="/voikko-diagnostics" class="fi.nationallibrary.ndl.solrvoikko2.VoikkoDiagnosticsHandler"/&gt;
+ */
+public class VoikkoDiagnosticsHandler extends RequestHandlerBase {
+
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  @Override
+  public void handleRequestBody(SolrQueryRequest req, SolrQueryResponse rsp) throws Exception {
+    final boolean logReport = req.getParams().getBool("log", false);
+    // Field types may share analyzers, so report each factory only once
+    final Map<VoikkoFilterFactory, Boolean> seen = new IdentityHashMap<VoikkoFilterFactory, Boolean>();
+    NamedList<Object> filters = new SimpleOrderedMap<Object>();
+    for (Map.Entry<String, FieldType> entry: req.getSchema().getFieldTypes().entrySet()) {
+      FieldType fieldType = entry.getValue();
+      addDiagnostics(filters, seen, entry.getKey() + "/index", fieldType.getIndexAnalyzer(), logReport);
+      addDiagnostics(filters, seen, entry.getKey() + "/query", fieldType.getQueryAnalyzer(), logReport);
+    }
+    rsp.add("voikkoDiagnostics", filters);
+  }
+
+  private void addDiagnostics(NamedList<Object> filters, Map<VoikkoFilterFactory, Boolean> seen, String name, Analyzer analyzer, boolean logReport) {
+    if (!(analyzer instanceof TokenizerChain)) {
+      return;
+    }
+    for (TokenFilterFactory factory: ((TokenizerChain) analyzer).getTokenFilterFactories()) {
+      if (!(factory instanceof VoikkoFilterFactory) || seen.put((VoikkoFilterFactory) factory, Boolean.TRUE) != null) {
+        continue;
+      }
+      VoikkoDiagnostics diagnostics = ((VoikkoFilterFactory) factory).getDiagnostics();
+      if (diagnostics == null) {
+        continue;
+      }
+      NamedList<Object> result = new SimpleOrderedMap<Object>();
+      result.add("topMisses", toNamedList(diagnostics.getTopMisses()));
+      result.add("topReloads", toNamedList(diagnostics.getTopReloads()));
+      NamedList<Object> slowest = new SimpleOrderedMap<Object>();
+      for (VoikkoDiagnostics.SlowAnalysis analysis: diagnostics.getSlowestAnalyses()) {
+        slowest.add(analysis.term, analysis.nanos / 1000);
+      }
+      result.add("slowestAnalysesMicros", slowest);
+      filters.add(name, result);
+      if (logReport) {
+        log.info("Diagnostics for " + name + ": " + diagnostics);
+      }
+    }
+  }
+
+  private static NamedList<Object> toNamedList(List<HeavyHitters.Entry> entries) {
+    NamedList<Object> list = new SimpleOrderedMap<Object>();
+    for (HeavyHitters.Entry entry: entries) {
+      list.add(entry.key, entry.getCount());
+    }
+    return list;
+  }
+
+  @Override
+  public String getDescription() {
+    return "Voikko filter diagnostics";
+  }
+}
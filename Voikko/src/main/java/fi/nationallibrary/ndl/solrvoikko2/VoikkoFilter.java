@@ -29,9 +29,9 @@ import org.slf4j.LoggerFactory;
 import org.apache.lucene.analysis.TokenFilter;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.KeywordAttribute;
 import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
 import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
-import org.puimula.libvoikko.Analysis;
 import org.puimula.libvoikko.Voikko;
 import com.github.benmanes.caffeine.cache.Cache;
 
@@ -62,13 +62,11 @@ public class VoikkoFilter extends TokenFilter {
    */
   public static final int DEFAULT_STATS_INTERVAL = 0;
 
-  private static final String BASEFORM_ATTR = "BASEFORM";
-  private static final String WORDBASES_ATTR = "WORDBASES";
-
-  protected Voikko voikko;
+  protected WordAnalyzer analyzer;
   protected final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
   protected final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
   protected final PositionIncrementAttribute posIncAtt = addAttribute(PositionIncrementAttribute.class);
+  protected final KeywordAttribute keywordAtt = addAttribute(KeywordAttribute.class);
   private State current = null;
   private int currentPosition = 1;
   private final boolean expandCompounds;
@@ -82,17 +80,30 @@ public class VoikkoFilter extends TokenFilter {
 
   private Cache<String, List<CompoundToken>> cache;
 
+  private final VoikkoDiagnostics diagnostics;
+
+  private final FinnishWordClassifier classifier;
+
+  private final AnalysisTiming timing = new AnalysisTiming();
+
   // Statistics
   private final static AtomicLong tokenCount = new AtomicLong();
   private final static AtomicLong analysisCount = new AtomicLong();
   private final static AtomicLong analysisTime = new AtomicLong();
+  private final static AtomicLong waitTime = new AtomicLong();
+  private final static AtomicLong skippedCount = new AtomicLong();
+  private final static AtomicLong failedCount = new AtomicLong();
 
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   protected VoikkoFilter(TokenStream input, Voikko voikko, boolean expandCompounds, int minWordSize, int minSubwordSize, int maxSubwordSize, boolean allAnalysis, Cache<String, List<CompoundToken>> cache, int statsInterval) {
+    this(input, new BindingWordAnalyzer(voikko), expandCompounds, minWordSize, minSubwordSize, maxSubwordSize, allAnalysis, cache, statsInterval, null, null);
+  }
+
+  protected VoikkoFilter(TokenStream input, WordAnalyzer analyzer, boolean expandCompounds, int minWordSize, int minSubwordSize, int maxSubwordSize, boolean allAnalysis, Cache<String, List<CompoundToken>> cache, int statsInterval, VoikkoDiagnostics diagnostics, FinnishWordClassifier classifier) {
     super(input);
     this.tokens = new LinkedHashSet<CompoundToken>();
-    this.voikko = voikko;
+    this.analyzer = analyzer;
     this.expandCompounds = expandCompounds;
     this.minWordSize = minWordSize;
     this.minSubwordSize = minSubwordSize;
@@ -100,6 +111,8 @@ public class VoikkoFilter extends TokenFilter {
     this.allAnalysis = allAnalysis;
     this.cache = cache;
     this.statsInterval = statsInterval;
+    this.diagnostics = diagnostics;
+    this.classifier = classifier;
   }
 
   @Override
@@ -154,44 +167,74 @@ public class VoikkoFilter extends TokenFilter {
       if (termLen < minWordSize || !term.matches("[a-zA-ZåäöÅÄÖ]+")) {
         return true;
       }
+      // Rules that depend on the original form must run before the lowercase cache lookup
+      if (classifier != null && (keywordAtt.isKeyword() || !classifier.acceptToken(term))) {
+        if (statsInterval > 0) {
+          skippedCount.incrementAndGet();
+        }
+        return true;
+      }
+      final String cacheKey = term.toLowerCase();
       List<CompoundToken> cachedTokens = cache != null
-        ? cache.getIfPresent(term.toLowerCase())
+        ? cache.getIfPresent(cacheKey)
         : null;
       if (cachedTokens != null) {
         tokens.addAll(cachedTokens);
       } else {
-        long startTime = 0;
-        if (statsInterval > 0) {
-          analysisCount.incrementAndGet();
-          startTime = System.nanoTime();
+        if (classifier != null && !classifier.acceptWord(cacheKey)) {
+          if (statsInterval > 0) {
+            skippedCount.incrementAndGet();
+          }
+          return true;
         }
-        List<Analysis> analysisList = voikko.analyze(term);
-        if (statsInterval > 0) {
-          analysisTime.addAndGet((System.nanoTime() - startTime) / 1000000);
+        if (diagnostics != null) {
+          diagnostics.recordMiss(cacheKey);
+        }
+        List<WordAnalysis> analysisList;
+        if (statsInterval > 0 || diagnostics != null) {
+          // Time only the analysis, not any wait in a scheduler queue
+          analysisList = analyzer.analyze(term, timing);
+          if (statsInterval > 0) {
+            analysisCount.incrementAndGet();
+            analysisTime.addAndGet(timing.analysisNanos / 1000000);
+            waitTime.addAndGet(timing.waitNanos / 1000000);
+          }
+          if (diagnostics != null) {
+            diagnostics.recordAnalysis(term, timing.analysisNanos);
+          }
+        } else {
+          analysisList = analyzer.analyze(term);
+        }
+
+        if (analysisList == null) {
+          // The failure may be temporary, so pass the token through without caching it
+          if (statsInterval > 0) {
+            failedCount.incrementAndGet();
+          }
+          return true;
         }
 
         if (analysisList.isEmpty()) {
           if (cache != null) {
             ArrayList<CompoundToken> tokenList = new ArrayList<CompoundToken>();
-            cache.put(term.toLowerCase(), tokenList);
+            cache.put(cacheKey, tokenList);
           }
           return true;
         }
 
         // Remove duplicates from analysis list
         if (analysisList.size() > 1) {
-          LinkedHashSet<Analysis> analysisMap = new LinkedHashSet<Analysis>(analysisList);
-          analysisList = new ArrayList<Analysis>(analysisMap);
+          analysisList = removeDuplicates(analysisList);
         }
 
         // Process base forms first
         boolean first = true;
-        for (Analysis analysis: analysisList) {
+        for (WordAnalysis analysis: analysisList) {
           if (!this.allAnalysis && !first) {
             break;
           }
-          if (analysis.containsKey(BASEFORM_ATTR)) {
-            String baseform = analysis.get(BASEFORM_ATTR);
+          if (analysis.baseform != null) {
+            String baseform = analysis.baseform;
             // get rid of equals sign in e.g. di=oksidi
             baseform = baseform.replace("=", "");
             tokens.add(new CompoundToken(baseform, 1));
@@ -203,15 +246,15 @@ public class VoikkoFilter extends TokenFilter {
         if (expandCompounds) {
           first = true;
           StringBuilder composedWord = new StringBuilder();
-          for (Analysis analysis: analysisList) {
+          for (WordAnalysis analysis: analysisList) {
             if (!this.allAnalysis && !first) {
               break;
             }
             first = false;
-            if (!analysis.containsKey(WORDBASES_ATTR)) {
+            if (analysis.wordbases == null) {
               continue;
             }
-            String wordbases = analysis.get(WORDBASES_ATTR);
+            String wordbases = analysis.wordbases;
 
             // Split by plus sign (unless right after an open parenthesis)
             String matches[] = wordbases.split("(?<!\\()\\+");
@@ -271,7 +314,7 @@ public class VoikkoFilter extends TokenFilter {
         }
         ArrayList<CompoundToken> tokenList = new ArrayList<CompoundToken>(tokens);
         if (cache != null) {
-          cache.put(term.toLowerCase(), tokenList);
+          cache.put(cacheKey, tokenList);
         }
       }
 
@@ -293,6 +336,23 @@ public class VoikkoFilter extends TokenFilter {
     return false;
   }
 
+  /**
+   * Helper function that removes duplicates from a short analysis list
+   *
+   * @param analysisList Analysis list
+   *
+   * @return List of unique analyses in original order
+   */
+  private static List<WordAnalysis> removeDuplicates(List<WordAnalysis> analysisList) {
+    ArrayList<WordAnalysis> result = new ArrayList<WordAnalysis>(analysisList.size());
+    for (WordAnalysis analysis: analysisList) {
+      if (!result.contains(analysis)) {
+        result.add(analysis);
+      }
+    }
+    return result;
+  }
+
   /**
    * Helper function that writes periodic stats to Solr log
    */
@@ -300,14 +360,20 @@ public class VoikkoFilter extends TokenFilter {
     final String msg = "Stats"
       + ": tokenCount=" + tokenCount.get()
       + ", analysisCount=" + analysisCount.get()
+      + ", skippedCount=" + skippedCount.get()
+      + ", failedCount=" + failedCount.get()
       + ", analysisTime=" + analysisTime.get()
       + ", avgTime=" + (analysisCount.get() > 0
         ? (float)analysisTime.get() / analysisCount.get() : 0) + "ms"
+      + ", waitTime=" + waitTime.get()
       + ", cacheSize=" + (cache != null ? cache.estimatedSize() : '0')
       + ", cacheHits=" + (cache != null ? cache.stats().hitCount() : '-')
       + ", hitRatio=" + (cache != null ? cache.stats().hitRate() : '-')
       + ", evictionCount=" + (cache != null ? cache.stats().evictionCount() : '-');
 
     log.info(msg);
+    if (diagnostics != null) {
+      log.info("Diagnostics: " + diagnostics);
+    }
   }
 }
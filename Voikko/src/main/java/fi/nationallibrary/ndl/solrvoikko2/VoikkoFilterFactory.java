@@ -16,15 +16,21 @@
 
 package fi.nationallibrary.ndl.solrvoikko2;
 
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.lucene.analysis.CharArraySet;
 import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.util.ResourceLoader;
+import org.apache.lucene.analysis.util.ResourceLoaderAware;
 import org.apache.lucene.analysis.util.TokenFilterFactory;
 import org.puimula.libvoikko.Voikko;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,7 +40,7 @@ import org.slf4j.LoggerFactory;
  * @author ere.maijala@helsinki.fi
  *
  */
-public class VoikkoFilterFactory extends TokenFilterFactory {
+public class VoikkoFilterFactory extends TokenFilterFactory implements ResourceLoaderAware {
 
   /**
    * Default cache size
@@ -48,8 +54,16 @@ public class VoikkoFilterFactory extends TokenFilterFactory {
   private final int maxSubwordSize;
   private final int cacheSize;
   private final int statsInterval;
-  private final Voikko voikko;
+  private final WordAnalyzer analyzer;
   private final Cache<String, List<CompoundToken>> cache;
+  private final VoikkoDiagnostics diagnostics;
+  private final boolean classifyWords;
+  private final float classifierThreshold;
+  private final int maxAcronymLength;
+  private final int maxWordSize;
+  private final String protectedWordsFile;
+  private final boolean ignoreCase;
+  private FinnishWordClassifier classifier = null;
   private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   public VoikkoFilterFactory(Map<String, String> args) {
@@ -57,24 +71,74 @@ public class VoikkoFilterFactory extends TokenFilterFactory {
     final String language = get(args, "dictionaryLanguage", "fi-x-morphoid");
     final String dictionaryPath = get(args, "dictionaryPath", "");
     log.info("initializing " + language + " with dictionary path " + (dictionaryPath.isEmpty() ? "[default]" : dictionaryPath));
-    voikko = new Voikko(language, dictionaryPath.isEmpty() ? null : dictionaryPath);
     minWordSize = getInt(args, "minWordSize", VoikkoFilter.DEFAULT_MIN_WORD_SIZE);
     minSubwordSize = getInt(args, "minSubwordSize", VoikkoFilter.DEFAULT_MIN_SUBWORD_SIZE);
     maxSubwordSize = getInt(args, "maxSubwordSize", VoikkoFilter.DEFAULT_MAX_SUBWORD_SIZE);
     expandCompounds = getBoolean(args, "expandCompounds", false);
     allAnalysis = getBoolean(args, "allAnalysis", false);
+    final WordAnalyzer backendAnalyzer;
+    final String backend = get(args, "analysisBackend", "binding");
+    if ("binding".equals(backend)) {
+      backendAnalyzer = new BindingWordAnalyzer(new Voikko(language, dictionaryPath.isEmpty() ? null : dictionaryPath));
+    } else if ("native".equals(backend)) {
+      backendAnalyzer = new NativeWordAnalyzer(language, dictionaryPath.isEmpty() ? null : dictionaryPath, expandCompounds, allAnalysis);
+    } else if ("workers".equals(backend)) {
+      backendAnalyzer = WorkerPoolWordAnalyzer.getShared(language, dictionaryPath.isEmpty() ? null : dictionaryPath,
+        get(args, "workerBackend", "binding"), expandCompounds, allAnalysis,
+        getInt(args, "workerCount", WorkerPoolWordAnalyzer.DEFAULT_WORKER_COUNT),
+        get(args, "workerJvmOptions", WorkerPoolWordAnalyzer.DEFAULT_JVM_OPTIONS),
+        get(args, "workerCommandPrefix", ""),
+        getInt(args, "workerStartupTimeout", WorkerPoolWordAnalyzer.DEFAULT_STARTUP_TIMEOUT),
+        getInt(args, "workerTimeout", WorkerPoolWordAnalyzer.DEFAULT_TIMEOUT),
+        getInt(args, "workerIdleTimeout", WorkerPoolWordAnalyzer.DEFAULT_IDLE_TIMEOUT));
+    } else {
+      throw new IllegalArgumentException("Unknown analysisBackend: " + backend);
+    }
+    final String priority = get(args, "analysisPriority", Arrays.asList("interactive", "bulk"));
+    if (priority != null) {
+      final AnalysisScheduler scheduler = AnalysisScheduler.getShared(
+        get(args, "scheduler", "default"),
+        getInt(args, "schedulerThreads", AnalysisScheduler.DEFAULT_THREADS),
+        getInt(args, "schedulerQueueSize", AnalysisScheduler.DEFAULT_QUEUE_SIZE),
+        getInt(args, "bulkTokensPerSecond", 0));
+      analyzer = new ScheduledWordAnalyzer(backendAnalyzer, scheduler,
+        "bulk".equals(priority) ? AnalysisScheduler.Priority.BULK : AnalysisScheduler.Priority.INTERACTIVE);
+    } else {
+      analyzer = backendAnalyzer;
+    }
     statsInterval = getInt(args, "statsInterval", VoikkoFilter.DEFAULT_STATS_INTERVAL);
     cacheSize = getInt(args, "cacheSize", DEFAULT_CACHE_SIZE);
+    classifyWords = getBoolean(args, "classifyWords", false);
+    classifierThreshold = getFloat(args, "classifierThreshold", FinnishWordClassifier.DEFAULT_THRESHOLD);
+    maxAcronymLength = getInt(args, "maxAcronymLength", FinnishWordClassifier.DEFAULT_MAX_ACRONYM_LENGTH);
+    maxWordSize = getInt(args, "maxWordSize", FinnishWordClassifier.DEFAULT_MAX_WORD_SIZE);
+    protectedWordsFile = get(args, "protected");
+    ignoreCase = getBoolean(args, "ignoreCase", false);
+    final int diagnosticsTopSize = getInt(args, "diagnosticsTopSize", 0);
+    final int diagnosticsSlowestSize = getInt(args, "diagnosticsSlowestSize", 0);
+    if (diagnosticsTopSize > 0 || diagnosticsSlowestSize > 0) {
+      diagnostics = new VoikkoDiagnostics(diagnosticsTopSize, diagnosticsSlowestSize,
+        getInt(args, "diagnosticsEvictedSize", Math.max(cacheSize, 1)),
+        getInt(args, "diagnosticsSketchWidth", CountMinSketch.DEFAULT_WIDTH));
+    } else {
+      diagnostics = null;
+    }
     if (cacheSize > 0) {
+      Caffeine<Object, Object> builder = Caffeine.newBuilder()
+        .maximumSize(cacheSize);
       if (statsInterval > 0) {
-        cache = Caffeine.newBuilder()
-        .maximumSize(cacheSize)
-        .recordStats()
-        .build();
+        builder.recordStats();
+      }
+      if (diagnostics != null) {
+        cache = builder
+          .removalListener((String key, List<CompoundToken> value, RemovalCause cause) -> {
+            if (cause.wasEvicted()) {
+              diagnostics.recordEviction(key);
+            }
+          })
+          .build();
       } else {
-        cache = Caffeine.newBuilder()
-        .maximumSize(cacheSize)
-        .build();
+        cache = builder.build();
       }
     } else {
       cache = null;
@@ -82,13 +146,32 @@ public class VoikkoFilterFactory extends TokenFilterFactory {
     log.info("initialized with cache for " + cacheSize + " entries");
   }
 
+  @Override
+  public void inform(ResourceLoader loader) throws IOException {
+    if (classifyWords) {
+      CharArraySet protectedWords = protectedWordsFile != null
+        ? getWordSet(loader, protectedWordsFile, ignoreCase)
+        : null;
+      classifier = new FinnishWordClassifier(classifierThreshold, maxAcronymLength, maxWordSize, protectedWords);
+    }
+  }
+
   public TokenStream create(TokenStream input) {
-    return new VoikkoFilter(input, voikko, expandCompounds, minWordSize, minSubwordSize, maxSubwordSize, allAnalysis, cache, statsInterval);
+    return new VoikkoFilter(input, analyzer, expandCompounds, minWordSize, minSubwordSize, maxSubwordSize, allAnalysis, cache, statsInterval, diagnostics, classifier);
+  }
+
+  /**
+   * Get diagnostics collected by filters created by this factory
+   *
+   * @return Diagnostics or null if not enabled
+   */
+  public VoikkoDiagnostics getDiagnostics() {
+    return diagnostics;
   }
 
   @Override
   protected void finalize() throws Throwable {
-	  voikko.terminate();
+	  analyzer.terminate();
   }
 
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.puimula.libvoikko.Voikko;
+
+/**
+ * Helper process that performs Voikko analysis on behalf of
+ * {@link WorkerPoolWordAnalyzer}
+ *
+ * Writes a ready signal to standard output once the dictionary has been
+ * loaded, then reads batches of words from standard input and writes their
+ * analyses to standard output until standard input is closed. A batch is an int word
+ * count followed by the words. The response contains for each word an int
+ * analysis count followed by the optional BASEFORM and WORDBASES of each
+ * analysis.
+ *
+ * Usage: VoikkoWorker &lt;language&gt; &lt;dictionaryPath&gt; &lt;backend&gt; &lt;wordbases&gt; &lt;allAnalyses&gt;
+ */
+public class VoikkoWorker {
+
+  /**
+   * Signal written by the helper when it is ready to analyze words
+   */
+  static final int READY = 0x566f696b;
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 5) {
+      System.err.println("Usage: VoikkoWorker <language> <dictionaryPath> <backend> <wordbases> <allAnalyses>");
+      System.exit(1);
+    }
+    final String dictionaryPath = args[1].isEmpty() ? null : args[1];
+    serve(() -> {
+      if ("native".equals(args[2])) {
+        return new NativeWordAnalyzer(args[0], dictionaryPath, Boolean.parseBoolean(args[3]), Boolean.parseBoolean(args[4]));
+      }
+      return new BindingWordAnalyzer(new Voikko(args[0], dictionaryPath));
+    });
+  }
+
+  /**
+   * Serve analysis requests over standard input and output
+   *
+   * @param analyzerFactory Function creating the analyzer
+   *
+   * @throws IOException
+   */
+  static void serve(Supplier<WordAnalyzer> analyzerFactory) throws IOException {
+    final DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+    final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(System.out));
+    // Keep stray output from corrupting the protocol stream
+    System.setOut(System.err);
+
+    final WordAnalyzer analyzer = analyzerFactory.get();
+    try {
+      out.writeInt(READY);
+      out.flush();
+      List<String> words;
+      while ((words = readWords(in)) != null) {
+        writeAnalyses(out, analyzer.analyzeAll(words));
+        out.flush();
+      }
+    } finally {
+      analyzer.terminate();
+    }
+  }
+
+  /**
+   * Wait for the ready signal of a helper
+   *
+   * @param in Input stream
+   *
+   * @throws IOException if the stream ended or does not start with the signal
+   */
+  static void readReady(DataInputStream in) throws IOException {
+    if (in.readInt() != READY) {
+      throw new IOException("Invalid ready signal from Voikko worker");
+    }
+  }
+
+  /**
+   * Write a batch of words
+   *
+   * @param out   Output stream
+   * @param words Words
+   *
+   * @throws IOException
+   */
+  static void writeWords(DataOutputStream out, List<String> words) throws IOException {
+    out.writeInt(words.size());
+    for (String word: words) {
+      out.writeUTF(word);
+    }
+  }
+
+  /**
+   * Read a batch of words
+   *
+   * @param in Input stream
+   *
+   * @return Words or null if the stream has ended
+   * @throws IOException
+   */
+  static List<String> readWords(DataInputStream in) throws IOException {
+    final int count;
+    try {
+      count = in.readInt();
+    } catch (EOFException e) {
+      return null;
+    }
+    List<String> words = new ArrayList<String>(count);
+    for (int i = 0; i < count; i++) {
+      words.add(in.readUTF());
+    }
+    return words;
+  }
+
+  /**
+   * Write analyses of a batch of words
+   *
+   * @param out      Output stream
+   * @param analyses Analysis lists
+   *
+   * @throws IOException
+   */
+  static void writeAnalyses(DataOutputStream out, List<List<WordAnalysis>> analyses) throws IOException {
+    for (List<WordAnalysis> analysisList: analyses) {
+      out.writeInt(analysisList.size());
+      for (WordAnalysis analysis: analysisList) {
+        writeOptional(out, analysis.baseform);
+        writeOptional(out, analysis.wordbases);
+      }
+    }
+  }
+
+  /**
+   * Read analyses of a batch of words
+   *
+   * @param in    Input stream
+   * @param count Number of words in the batch
+   *
+   * @return Analysis lists
+   * @throws IOException
+   */
+  static List<List<WordAnalysis>> readAnalyses(DataInputStream in, int count) throws IOException {
+    List<List<WordAnalysis>> analyses = new ArrayList<List<WordAnalysis>>(count);
+    for (int i = 0; i < count; i++) {
+      final int analysisCount = in.readInt();
+      List<WordAnalysis> analysisList = new ArrayList<WordAnalysis>(analysisCount);
+      for (int j = 0; j < analysisCount; j++) {
+        final String baseform = readOptional(in);
+        analysisList.add(new WordAnalysis(baseform, readOptional(in)));
+      }
+      analyses.add(analysisList);
+    }
+    return analyses;
+  }
+
+  private static void writeOptional(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readOptional(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+}
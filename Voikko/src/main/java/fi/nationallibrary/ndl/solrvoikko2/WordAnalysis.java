@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Helper class to hold the analysis attributes used by the filter
+ */
+
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.util.Objects;
+
+public class WordAnalysis {
+  public final String baseform;
+  public final String wordbases;
+
+  /**
+   * @param baseform  BASEFORM attribute or null
+   * @param wordbases WORDBASES attribute or null
+   */
+  public WordAnalysis(String baseform, String wordbases) {
+    this.baseform = baseform;
+    this.wordbases = wordbases;
+  }
+
+  public int hashCode() {
+    return Objects.hash(baseform, wordbases);
+  }
+
+  /**
+   * Compare objects
+   *
+   * @return boolean
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == null || !(obj instanceof WordAnalysis)) {
+      return false;
+    }
+    WordAnalysis a2 = (WordAnalysis) obj;
+
+    return Objects.equals(a2.baseform, baseform)
+      && Objects.equals(a2.wordbases, wordbases);
+  }
+}
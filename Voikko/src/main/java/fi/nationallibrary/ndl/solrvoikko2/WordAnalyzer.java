@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Backend that provides morphological analysis of words for the filter
+ */
+public interface WordAnalyzer {
+  /**
+   * Analyze a word
+   *
+   * @param word Word to analyze
+   *
+   * @return List of analyses, empty if the word is not recognized, or null if
+   *         the analysis failed and may succeed if retried later
+   */
+  List<WordAnalysis> analyze(String word);
+
+  /**
+   * Analyze a word and record the time taken
+   *
+   * @param word   Word to analyze
+   * @param timing Receives the analysis time and any wait before it
+   *
+   * @return List of analyses as returned by {@link #analyze(String)}
+   */
+  default List<WordAnalysis> analyze(String word, AnalysisTiming timing) {
+    final long start = System.nanoTime();
+    try {
+      return analyze(word);
+    } finally {
+      timing.waitNanos = 0;
+      timing.analysisNanos = System.nanoTime() - start;
+    }
+  }
+
+  /**
+   * Analyze a batch of words
+   *
+   * @param words Words to analyze
+   *
+   * @return List of analysis lists in the order of the words, with null for
+   *         the words whose analysis failed
+   */
+  default List<List<WordAnalysis>> analyzeAll(List<String> words) {
+    List<List<WordAnalysis>> result = new ArrayList<List<WordAnalysis>>(words.size());
+    for (String word: words) {
+      result.add(analyze(word));
+    }
+    return result;
+  }
+
+  /**
+   * Release any resources held by the analyzer
+   */
+  void terminate();
+}
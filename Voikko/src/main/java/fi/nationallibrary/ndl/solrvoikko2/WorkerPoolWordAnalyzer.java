@@ -0,0 +1,555 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.puimula.libvoikko.Voikko;
+import org.puimula.libvoikko.VoikkoException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.jna.Native;
+
+/**
+ * Word analyzer that delegates analysis to a pool of helper processes
+ *
+ * Each helper runs {@link VoikkoWorker} in a separate JVM and communicates
+ * over its standard input and output. A helper that crashes or does not
+ * answer within the timeout is killed and the request retried once on a new
+ * helper; if that fails too, the analysis of the words is reported as failed
+ * so that bad input never fails the request. Starting a helper and loading
+ * the dictionary has its own, longer timeout.
+ *
+ * Requests that arrive while all helpers are busy are queued, and the next
+ * free helper analyzes all queued words in a single round trip. The memory of the helpers can be
+ * limited with JVM options and a command prefix such as prlimit.
+ *
+ * Pools are shared between filter factories with identical settings, so a
+ * core reload reuses the existing helpers. Helpers idle for longer than the
+ * idle timeout are stopped and restarted on demand, and all helpers are
+ * stopped when the JVM shuts down.
+ */
+public class WorkerPoolWordAnalyzer implements WordAnalyzer {
+
+  /**
+   * Default JVM options for helper processes
+   */
+  public static final String DEFAULT_JVM_OPTIONS = "-Xmx64m -XX:+UseSerialGC";
+
+  /**
+   * Default number of helper processes per pool: the number of processors,
+   * but at least 2 and at most 4
+   */
+  public static final int DEFAULT_WORKER_COUNT = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+  /**
+   * Maximum number of words sent to a helper in one round trip
+   */
+  static final int MAX_BATCH_SIZE = 256;
+
+  /**
+   * Default time in milliseconds to wait for a helper to start and load the dictionary
+   */
+  public static final int DEFAULT_STARTUP_TIMEOUT = 60000;
+
+  /**
+   * Default time in milliseconds to wait for a helper to answer
+   */
+  public static final int DEFAULT_TIMEOUT = 10000;
+
+  /**
+   * Default time in milliseconds after which an unused helper is stopped
+   */
+  public static final int DEFAULT_IDLE_TIMEOUT = 600000;
+
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final Map<String, WorkerPoolWordAnalyzer> pools = new HashMap<String, WorkerPoolWordAnalyzer>();
+
+  private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "voikko-worker-timer");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private static boolean shutdownHookAdded = false;
+
+  /**
+   * Words of a single caller waiting for analysis
+   */
+  private static final class Request {
+    final List<String> words;
+    List<List<WordAnalysis>> result;
+    boolean done = false;
+
+    Request(List<String> words) {
+      this.words = words;
+    }
+  }
+
+  /**
+   * A pool slot holding a helper process that is started on demand
+   */
+  private final class Worker {
+    private final ReentrantLock lock = new ReentrantLock();
+    private Process process;
+    private DataOutputStream out;
+    private DataInputStream in;
+    private boolean ready;
+    private long lastUsed;
+
+    List<List<WordAnalysis>> analyzeAll(List<String> words) throws IOException {
+      lock.lock();
+      try {
+        if (process == null || !process.isAlive()) {
+          start();
+        }
+        if (!ready) {
+          awaitReady();
+        }
+        final Process current = process;
+        ScheduledFuture<?> kill = timer.schedule(() -> { current.destroyForcibly(); }, timeout, TimeUnit.MILLISECONDS);
+        try {
+          VoikkoWorker.writeWords(out, words);
+          out.flush();
+          List<List<WordAnalysis>> result = VoikkoWorker.readAnalyses(in, words.size());
+          lastUsed = System.nanoTime();
+          return result;
+        } catch (IOException e) {
+          stop();
+          if (kill.isDone()) {
+            throw new IOException("Voikko worker did not answer within " + timeout + " ms", e);
+          }
+          throw e;
+        } finally {
+          kill.cancel(false);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Wait until the helper has loaded the dictionary
+     */
+    private void awaitReady() throws IOException {
+      final Process current = process;
+      ScheduledFuture<?> kill = timer.schedule(() -> { current.destroyForcibly(); }, startupTimeout, TimeUnit.MILLISECONDS);
+      try {
+        VoikkoWorker.readReady(in);
+        ready = true;
+      } catch (IOException e) {
+        stop();
+        if (kill.isDone()) {
+          throw new IOException("Voikko worker did not start within " + startupTimeout + " ms", e);
+        }
+        throw e;
+      } finally {
+        kill.cancel(false);
+      }
+    }
+
+    void start() throws IOException {
+      lock.lock();
+      try {
+        stop();
+        if (terminated) {
+          throw new IOException("Voikko worker pool has been terminated");
+        }
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        process = builder.start();
+        out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        ready = false;
+        lastUsed = System.nanoTime();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void stop() {
+      lock.lock();
+      try {
+        if (process != null) {
+          try {
+            out.close();
+          } catch (IOException e) {
+            // Ignore, the process is destroyed anyway
+          }
+          process.destroyForcibly();
+          process = null;
+          out = null;
+          in = null;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Stop the helper if it has been idle too long and is not in use
+     */
+    void stopIfIdle() {
+      if (!lock.tryLock()) {
+        return;
+      }
+      try {
+        if (process != null && System.nanoTime() - lastUsed > TimeUnit.MILLISECONDS.toNanos(idleTimeout)) {
+          log.info("stopping idle Voikko worker");
+          stop();
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private final String key;
+  private final List<String> command;
+  private final int startupTimeout;
+  private final int timeout;
+  private final int idleTimeout;
+  private final ReentrantLock queueLock = new ReentrantLock();
+  private final Condition queueChanged = queueLock.newCondition();
+  private final ArrayDeque<Worker> idle;
+  private final ArrayDeque<Request> pending = new ArrayDeque<Request>();
+  private final List<Worker> workers;
+  private final ScheduledFuture<?> idleCheck;
+  private int refCount = 0;
+  private volatile boolean terminated = false;
+
+  private WorkerPoolWordAnalyzer(String key, List<String> command, int workerCount, int startupTimeout, int timeout, int idleTimeout) {
+    this.key = key;
+    this.command = command;
+    this.startupTimeout = startupTimeout;
+    this.timeout = timeout;
+    this.idleTimeout = idleTimeout;
+    idle = new ArrayDeque<Worker>(workerCount);
+    workers = new ArrayList<Worker>(workerCount);
+    try {
+      for (int i = 0; i < workerCount; i++) {
+        Worker worker = new Worker();
+        worker.start();
+        workers.add(worker);
+        idle.add(worker);
+      }
+    } catch (IOException e) {
+      stopWorkers();
+      throw new UncheckedIOException("Could not start Voikko worker", e);
+    }
+    final long checkInterval = Math.max(idleTimeout / 2, 1000);
+    idleCheck = timer.scheduleWithFixedDelay(() -> {
+      for (Worker worker: workers) {
+        worker.stopIfIdle();
+      }
+    }, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    log.info("started " + workerCount + " Voikko workers");
+  }
+
+  /**
+   * Get a pool shared by all callers with the same settings, creating it if
+   * necessary. Each call must be paired with a call to {@link #terminate()}.
+   *
+   * @param language       Dictionary language
+   * @param dictionaryPath Dictionary path or null for default
+   * @param backend        Analysis backend used in the helpers (binding or native)
+   * @param wordbases      Whether to fetch the WORDBASES attribute
+   * @param allAnalyses    Whether to fetch all analyses instead of the first one
+   * @param workerCount    Number of helper processes
+   * @param jvmOptions     Space-separated JVM options for the helpers
+   * @param commandPrefix  Space-separated command to prepend, e.g. for resource limits
+   * @param startupTimeout Time in milliseconds to wait for a helper to start
+   * @param timeout        Time in milliseconds to wait for a helper to answer
+   * @param idleTimeout    Time in milliseconds after which an unused helper is stopped
+   *
+   * @return Pool
+   */
+  public static WorkerPoolWordAnalyzer getShared(String language, String dictionaryPath, String backend, boolean wordbases,
+      boolean allAnalyses, int workerCount, String jvmOptions, String commandPrefix, int startupTimeout, int timeout,
+      int idleTimeout) {
+    List<String> command = buildCommand(VoikkoWorker.class, jvmOptions, commandPrefix, Arrays.asList(language,
+      dictionaryPath != null ? dictionaryPath : "", backend, Boolean.toString(wordbases), Boolean.toString(allAnalyses)));
+    return getShared(command, workerCount, startupTimeout, timeout, idleTimeout);
+  }
+
+  /**
+   * Get a pool running the given helper command
+   *
+   * @param command        Helper command
+   * @param workerCount    Number of helper processes
+   * @param startupTimeout Time in milliseconds to wait for a helper to start
+   * @param timeout        Time in milliseconds to wait for a helper to answer
+   * @param idleTimeout    Time in milliseconds after which an unused helper is stopped
+   *
+   * @return Pool
+   */
+  static WorkerPoolWordAnalyzer getShared(List<String> command, int workerCount, int startupTimeout, int timeout,
+      int idleTimeout) {
+    if (workerCount < 1) {
+      throw new IllegalArgumentException("workerCount must be at least 1");
+    }
+    final String key = command + "|" + workerCount + "|" + startupTimeout + "|" + timeout + "|" + idleTimeout;
+
+    synchronized (pools) {
+      WorkerPoolWordAnalyzer pool = pools.get(key);
+      if (pool == null) {
+        pool = new WorkerPoolWordAnalyzer(key, command, workerCount, startupTimeout, timeout, idleTimeout);
+        pools.put(key, pool);
+        if (!shutdownHookAdded) {
+          Runtime.getRuntime().addShutdownHook(new Thread(WorkerPoolWordAnalyzer::terminateAll, "voikko-worker-shutdown"));
+          shutdownHookAdded = true;
+        }
+      }
+      ++pool.refCount;
+      return pool;
+    }
+  }
+
+  @Override
+  public List<WordAnalysis> analyze(String word) {
+    return analyzeAll(Collections.singletonList(word)).get(0);
+  }
+
+  /**
+   * Analyze a batch of words
+   *
+   * The words are queued together with the words of other callers. Whoever
+   * gets the next free helper sends everything queued so far to it, so
+   * concurrent cache misses share round trips.
+   */
+  @Override
+  public List<List<WordAnalysis>> analyzeAll(List<String> words) {
+    final Request request = new Request(words);
+    queueLock.lock();
+    try {
+      pending.add(request);
+    } finally {
+      queueLock.unlock();
+    }
+    while (true) {
+      final Worker worker;
+      final List<Request> batch = new ArrayList<Request>();
+      queueLock.lock();
+      try {
+        while (!request.done && !terminated && idle.isEmpty()) {
+          queueChanged.await();
+        }
+        if (request.done) {
+          return request.result;
+        }
+        if (terminated) {
+          pending.remove(request);
+          throw new VoikkoException("Attempt to use Voikko instance after terminate() was called");
+        }
+        worker = idle.poll();
+        int wordCount = 0;
+        while (!pending.isEmpty() && (batch.isEmpty() || wordCount + pending.peek().words.size() <= MAX_BATCH_SIZE)) {
+          Request next = pending.poll();
+          wordCount += next.words.size();
+          batch.add(next);
+        }
+      } catch (InterruptedException e) {
+        pending.remove(request);
+        Thread.currentThread().interrupt();
+        throw new VoikkoException("Interrupted while waiting for a Voikko worker");
+      } finally {
+        queueLock.unlock();
+      }
+      try {
+        process(worker, batch);
+      } finally {
+        queueLock.lock();
+        try {
+          for (Request next: batch) {
+            if (next.result == null) {
+              next.result = Collections.nCopies(next.words.size(), null);
+            }
+            next.done = true;
+          }
+          idle.add(worker);
+          queueChanged.signalAll();
+        } finally {
+          queueLock.unlock();
+        }
+      }
+    }
+  }
+
+  /**
+   * Analyze the words of a batch of requests on a helper
+   *
+   * If a batch of several requests fails, the requests are retried one at a
+   * time so that only the words that break the helper are left unanalyzed.
+   */
+  private void process(Worker worker, List<Request> batch) {
+    if (batch.size() > 1) {
+      List<String> words = new ArrayList<String>();
+      for (Request request: batch) {
+        words.addAll(request.words);
+      }
+      try {
+        List<List<WordAnalysis>> analyses = worker.analyzeAll(words);
+        int start = 0;
+        for (Request request: batch) {
+          request.result = analyses.subList(start, start + request.words.size());
+          start += request.words.size();
+        }
+        return;
+      } catch (IOException e) {
+        log.warn("Voikko worker failed on a batch of " + words.size() + " words, retrying separately: " + e.getMessage());
+      }
+    }
+    for (Request request: batch) {
+      request.result = analyzeWithRetry(worker, request.words);
+    }
+  }
+
+  private List<List<WordAnalysis>> analyzeWithRetry(Worker worker, List<String> words) {
+    try {
+      return worker.analyzeAll(words);
+    } catch (IOException e) {
+      log.warn("Voikko worker failed, restarting: " + e.getMessage());
+    }
+    try {
+      return worker.analyzeAll(words);
+    } catch (IOException e) {
+      // Most likely the input itself crashes or hangs the helper
+      log.error("Voikko worker failed again, leaving words unanalyzed: " + words, e);
+      return Collections.nCopies(words.size(), null);
+    }
+  }
+
+  /**
+   * Release this reference to the pool and stop the helpers when the last
+   * reference is released
+   */
+  @Override
+  public void terminate() {
+    synchronized (pools) {
+      if (terminated || --refCount > 0) {
+        return;
+      }
+      pools.remove(key);
+      terminated = true;
+    }
+    stopWorkers();
+  }
+
+  /**
+   * Stop the helpers of all pools
+   */
+  static void terminateAll() {
+    List<WorkerPoolWordAnalyzer> all;
+    synchronized (pools) {
+      all = new ArrayList<WorkerPoolWordAnalyzer>(pools.values());
+      pools.clear();
+      for (WorkerPoolWordAnalyzer pool: all) {
+        pool.terminated = true;
+      }
+    }
+    for (WorkerPoolWordAnalyzer pool: all) {
+      pool.stopWorkers();
+    }
+  }
+
+  private void stopWorkers() {
+    if (idleCheck != null) {
+      idleCheck.cancel(false);
+    }
+    for (Worker worker: workers) {
+      worker.stop();
+    }
+    // Wake up callers waiting for a helper
+    queueLock.lock();
+    try {
+      queueChanged.signalAll();
+    } finally {
+      queueLock.unlock();
+    }
+  }
+
+  private static void addOptions(List<String> command, String options) {
+    if (options != null && !options.trim().isEmpty()) {
+      command.addAll(Arrays.asList(options.trim().split("\\s+")));
+    }
+  }
+
+  /**
+   * Build the command that starts a helper process
+   *
+   * @param mainClass     Main class of the helper
+   * @param jvmOptions    Space-separated JVM options for the helper
+   * @param commandPrefix Space-separated command to prepend, e.g. for resource limits
+   * @param args          Arguments for the main class
+   *
+   * @return Command
+   */
+  static List<String> buildCommand(Class<?> mainClass, String jvmOptions, String commandPrefix, List<String> args) {
+    List<String> command = new ArrayList<String>();
+    addOptions(command, commandPrefix);
+    command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+    addOptions(command, jvmOptions);
+    command.add("-cp");
+    command.add(getClassPath(mainClass));
+    command.add(mainClass.getName());
+    command.addAll(args);
+    return command;
+  }
+
+  /**
+   * Build a class path containing the classes needed by the helper process
+   *
+   * @param mainClass Main class of the helper
+   *
+   * @return Class path
+   */
+  private static String getClassPath(Class<?> mainClass) {
+    Set<String> paths = new LinkedHashSet<String>();
+    for (Class<?> cls: new Class<?>[] { mainClass, VoikkoWorker.class, Voikko.class, Native.class }) {
+      try {
+        paths.add(new File(cls.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath());
+      } catch (URISyntaxException | SecurityException e) {
+        throw new IllegalStateException("Could not determine location of " + cls.getName(), e);
+      }
+    }
+    return String.join(File.pathSeparator, paths);
+  }
+}
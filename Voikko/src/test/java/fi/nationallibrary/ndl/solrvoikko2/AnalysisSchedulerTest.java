@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.puimula.libvoikko.VoikkoException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * Unit tests for the analysis scheduler
+ */
+public class AnalysisSchedulerTest
+{
+    /**
+     * Tests that interactive work is served before queued bulk work
+     */
+    @Test
+    public void testPriority() throws Exception
+    {
+        final AnalysisScheduler scheduler = new AnalysisScheduler("test", 1, 10, 0);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        // Occupy the only thread
+        Thread blocker = submit(scheduler, AnalysisScheduler.Priority.BULK, () -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        started.await();
+
+        Thread bulk = submit(scheduler, AnalysisScheduler.Priority.BULK, () -> order.add("bulk"));
+        waitForQueued(bulk);
+        Thread interactive = submit(scheduler, AnalysisScheduler.Priority.INTERACTIVE, () -> order.add("interactive"));
+        waitForQueued(interactive);
+
+        release.countDown();
+        blocker.join();
+        bulk.join();
+        interactive.join();
+
+        assertEquals("[interactive, bulk]", order.toString());
+        scheduler.release();
+    }
+
+    /**
+     * Tests that shared schedulers are stopped when the last reference is released
+     */
+    @Test
+    public void testRelease()
+    {
+        AnalysisScheduler first = AnalysisScheduler.getShared("release-test", 1, 10, 1);
+        AnalysisScheduler second = AnalysisScheduler.getShared("release-test", 2, 10, 1);
+        assertSame(first, second);
+
+        first.release();
+        assertEquals("bulk", second.execute(AnalysisScheduler.Priority.BULK, () -> "bulk"));
+
+        second.release();
+        try {
+            second.execute(AnalysisScheduler.Priority.INTERACTIVE, () -> "interactive");
+            fail("Expected VoikkoException");
+        } catch (VoikkoException e) {
+            // Expected
+        }
+
+        AnalysisScheduler third = AnalysisScheduler.getShared("release-test", 1, 10, 0);
+        assertNotSame(first, third);
+        third.release();
+    }
+
+    /**
+     * Tests that time spent in the bulk throttle is not counted as analysis time
+     */
+    @Test
+    public void testTiming()
+    {
+        final AnalysisScheduler scheduler = new AnalysisScheduler("timing-test", 1, 10, 2);
+        WordAnalyzer analyzer = new ScheduledWordAnalyzer(new WordAnalyzer() {
+            @Override
+            public List<WordAnalysis> analyze(String word)
+            {
+                return Collections.singletonList(new WordAnalysis(word, null));
+            }
+
+            @Override
+            public void terminate()
+            {
+            }
+        }, scheduler, AnalysisScheduler.Priority.BULK);
+
+        AnalysisTiming timing = new AnalysisTiming();
+        analyzer.analyze("kissa", timing);
+        assertEquals("koira", analyzer.analyze("koira", timing).get(0).baseform);
+        assertTrue(timing.waitNanos >= TimeUnit.MILLISECONDS.toNanos(400));
+        assertTrue(timing.analysisNanos < TimeUnit.MILLISECONDS.toNanos(400));
+        analyzer.terminate();
+    }
+
+    private static Thread submit(AnalysisScheduler scheduler, AnalysisScheduler.Priority priority, Callable<?> call)
+    {
+        Thread thread = new Thread(() -> scheduler.execute(priority, call));
+        thread.start();
+        return thread;
+    }
+
+    private static void waitForQueued(Thread thread) throws InterruptedException
+    {
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+    }
+}
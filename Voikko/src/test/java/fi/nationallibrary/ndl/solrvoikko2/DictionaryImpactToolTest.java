@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Unit tests for the dictionary upgrade impact tool
+ */
+public class DictionaryImpactToolTest
+{
+    /**
+     * Stub analyzer that uses a map of base forms as its dictionary
+     */
+    private static WordAnalyzer createAnalyzer(Map<String, String> dictionary)
+    {
+        return new WordAnalyzer() {
+            @Override
+            public List<WordAnalysis> analyze(String word)
+            {
+                String baseform = dictionary.get(word.toLowerCase());
+                if (baseform == null) {
+                    return Collections.emptyList();
+                }
+                return Collections.singletonList(new WordAnalysis(baseform, null));
+            }
+
+            @Override
+            public void terminate()
+            {
+            }
+        };
+    }
+
+    private static Directory createIndex(String... texts) throws IOException
+    {
+        Directory directory = new ByteBuffersDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new WhitespaceAnalyzer()))) {
+            for (String text: texts) {
+                Document doc = new Document();
+                doc.add(new TextField("text_plain", text, Field.Store.NO));
+                writer.addDocument(doc);
+            }
+        }
+        return directory;
+    }
+
+    private static List<String> findChangedWords(Map<String, String> options, Directory directory) throws Exception
+    {
+        Map<String, String> oldDictionary = new HashMap<String, String>();
+        oldDictionary.put("kissat", "kissa");
+        oldDictionary.put("koirat", "koira");
+        oldDictionary.put("kalevala", "kalevala");
+        Map<String, String> newDictionary = new HashMap<String, String>(oldDictionary);
+        newDictionary.put("koirat", "koiras");
+        newDictionary.put("hevoset", "hevonen");
+        newDictionary.put("thinking", "think");
+        newDictionary.put("kalevala", "kaleva");
+
+        DictionaryImpactTool tool = new DictionaryImpactTool(options,
+            path -> createAnalyzer("old".equals(path) ? oldDictionary : newDictionary));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<String> changed = new ArrayList<String>(tool.findChangedWords(directory, "text_plain", "old", "new", 2,
+            new PrintStream(out, true, "UTF-8")));
+        Collections.sort(changed);
+        assertEquals(changed.size(), out.toString("UTF-8").split("\n").length);
+        return changed;
+    }
+
+    /**
+     * Tests for comparing expansions with the old and new dictionary
+     */
+    @Test
+    public void testFindChangedWords() throws Exception
+    {
+        try (Directory directory = createIndex("kissat ja koirat", "hevoset thinking", "kalevala")) {
+            assertEquals(Arrays.asList("hevoset", "kalevala", "koirat", "thinking"),
+                findChangedWords(new HashMap<String, String>(), directory));
+        }
+    }
+
+    /**
+     * Tests that words skipped by the classifier are not reported
+     */
+    @Test
+    public void testFindChangedWordsWithClassifier() throws Exception
+    {
+        Map<String, String> options = new HashMap<String, String>();
+        options.put("classifyWords", "true");
+        Path protectedFile = Files.createTempFile("protected", ".txt");
+        try (Directory directory = createIndex("kissat ja koirat", "hevoset thinking", "kalevala")) {
+            Files.write(protectedFile, "# Protected words\nkalevala\n".getBytes(StandardCharsets.UTF_8));
+            options.put("protected", protectedFile.toString());
+            assertEquals(Arrays.asList("hevoset", "koirat"), findChangedWords(options, directory));
+        } finally {
+            Files.delete(protectedFile);
+        }
+    }
+
+    /**
+     * Tests for the reindexing query
+     */
+    @Test
+    public void testBuildQuery()
+    {
+        assertEquals("{!terms f=text_plain}hevoset,koirat",
+            DictionaryImpactTool.buildQuery("text_plain", Arrays.asList("hevoset", "koirat")));
+    }
+}
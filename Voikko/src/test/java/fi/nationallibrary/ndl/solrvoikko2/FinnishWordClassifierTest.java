@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.util.AttributeFactory;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Unit tests for the Finnish word classifier
+ */
+public class FinnishWordClassifierTest
+{
+    /**
+     * Tests for accepted and rejected tokens
+     */
+    @Test
+    public void testClassifier()
+    {
+        FinnishWordClassifier classifier = new FinnishWordClassifier(
+            FinnishWordClassifier.DEFAULT_THRESHOLD,
+            FinnishWordClassifier.DEFAULT_MAX_ACRONYM_LENGTH,
+            FinnishWordClassifier.DEFAULT_MAX_WORD_SIZE,
+            new CharArraySet(Arrays.asList("Kalevala"), false)
+        );
+
+        String[] accepted = {
+            "kyminsanomat", "Taidemaalaus", "lopputarkastuspöytäkirja", "hyvinvointiasiantuntijajärjestelmässä",
+            "nuorisotyöttömyys", "presidentti", "banaani", "filosofia", "KAHDEKSANKULMAINEN",
+            // Loanwords and names in Finnish spelling
+            "grafiikka", "fotografia", "shakki", "blogi", "chileläinen", "pizza", "zoologia",
+            "Brasilia", "Bryssel", "olympia", "analyysi", "amatööri", "sheikki", "kvartsi",
+            "Washington", "psykologia", "kalevala",
+            // Compounds with a consonant cluster at the boundary
+            "kehitysstrategia", "talousstrategia", "tutkimusstrategia", "kansainvälistymisstrategia"
+        };
+        for (String term: accepted) {
+            assertTrue("Testing '" + term + "'", classifier.accept(term));
+        }
+
+        String[] rejected = {
+            "thinking", "Buckingham", "Stockholm", "quod", "och", "NATO", "iPhone", "xkcd", "Kalevala"
+        };
+        for (String term: rejected) {
+            assertFalse("Testing '" + term + "'", classifier.accept(term));
+        }
+    }
+
+    /**
+     * Tests that case-dependent rules do not depend on the cache contents
+     */
+    @Test
+    public void testFilterCaseRules() throws IOException
+    {
+        Cache<String, List<CompoundToken>> cache = Caffeine.newBuilder()
+            .maximumSize(100)
+            .build();
+        FinnishWordClassifier classifier = new FinnishWordClassifier(
+            FinnishWordClassifier.DEFAULT_THRESHOLD,
+            FinnishWordClassifier.DEFAULT_MAX_ACRONYM_LENGTH,
+            FinnishWordClassifier.DEFAULT_MAX_WORD_SIZE,
+            new CharArraySet(Arrays.asList("kalevala"), false)
+        );
+        WordAnalyzer analyzer = new WordAnalyzer() {
+            @Override
+            public List<WordAnalysis> analyze(String word)
+            {
+                return Collections.singletonList(new WordAnalysis(word.toLowerCase() + "_base", null));
+            }
+
+            @Override
+            public void terminate()
+            {
+            }
+        };
+
+        Tokenizer tokenizer = new StandardTokenizer(AttributeFactory.DEFAULT_ATTRIBUTE_FACTORY);
+        tokenizer.setReader(new StringReader("Nato NATO Kalevala kalevala"));
+        tokenizer.reset();
+        VoikkoFilter voikkoFilter = new VoikkoFilter(tokenizer, analyzer, false,
+            VoikkoFilter.DEFAULT_MIN_WORD_SIZE, VoikkoFilter.DEFAULT_MIN_SUBWORD_SIZE,
+            VoikkoFilter.DEFAULT_MAX_SUBWORD_SIZE, false, cache, 0, null, classifier);
+
+        String results = "";
+        while (voikkoFilter.incrementToken()) {
+            if (!results.isEmpty()) {
+                results += ",";
+            }
+            results += voikkoFilter.termAtt.toString();
+        }
+        voikkoFilter.close();
+
+        assertEquals("nato_base,NATO,kalevala_base,kalevala", results);
+    }
+}
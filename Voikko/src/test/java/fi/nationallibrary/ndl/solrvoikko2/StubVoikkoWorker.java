@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Helper process for worker pool tests
+ *
+ * Answers with "word_base" as the base form and the batch size as the word
+ * bases. The word "crash" makes the helper exit, "hang" makes it stop
+ * responding and "slow" delays the answer by a second. The optional argument
+ * delays the ready signal by the given number of milliseconds.
+ */
+public class StubVoikkoWorker
+{
+    public static void main(String[] args) throws IOException
+    {
+        final long startupDelay = args.length > 0 ? Long.parseLong(args[0]) : 0;
+        VoikkoWorker.serve(() -> {
+            sleep(startupDelay);
+            return new WordAnalyzer() {
+                @Override
+                public List<WordAnalysis> analyze(String word)
+                {
+                    return analyzeAll(Collections.singletonList(word)).get(0);
+                }
+
+                @Override
+                public List<List<WordAnalysis>> analyzeAll(List<String> words)
+                {
+                    List<List<WordAnalysis>> result = new ArrayList<List<WordAnalysis>>(words.size());
+                    for (String word: words) {
+                        if ("crash".equals(word)) {
+                            Runtime.getRuntime().halt(1);
+                        } else if ("hang".equals(word)) {
+                            sleep(Long.MAX_VALUE);
+                        } else if ("slow".equals(word)) {
+                            sleep(1000);
+                        }
+                        result.add(Collections.singletonList(
+                            new WordAnalysis(word + "_base", String.valueOf(words.size()))));
+                    }
+                    return result;
+                }
+
+                @Override
+                public void terminate()
+                {
+                }
+            };
+        });
+    }
+
+    private static void sleep(long millis)
+    {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Unit tests for Voikko diagnostics
+ */
+public class VoikkoDiagnosticsTest
+{
+    /**
+     * Tests for heavy hitter tracking
+     */
+    @Test
+    public void testHeavyHitters()
+    {
+        HeavyHitters hitters = new HeavyHitters(2);
+        for (int i = 0; i < 10; i++) {
+            hitters.add("kissa");
+        }
+        for (int i = 0; i < 5; i++) {
+            hitters.add("koira");
+        }
+        for (int i = 0; i < 100; i++) {
+            hitters.add("word" + i);
+        }
+
+        List<HeavyHitters.Entry> top = hitters.getTop();
+        assertEquals(2, top.size());
+        assertEquals("kissa", top.get(0).key);
+        assertEquals(10, top.get(0).getCount());
+        assertEquals("koira", top.get(1).key);
+    }
+
+    /**
+     * Tests that keys with the same String hash code are counted separately
+     */
+    @Test
+    public void testSketch()
+    {
+        CountMinSketch sketch = new CountMinSketch(64);
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        for (int i = 0; i < 100; i++) {
+            sketch.add("Aa");
+        }
+        assertEquals(100, sketch.estimate("Aa"));
+        assertEquals(0, sketch.estimate("BB"));
+    }
+
+    /**
+     * Tests for reload and slow analysis tracking
+     */
+    @Test
+    public void testDiagnostics()
+    {
+        VoikkoDiagnostics diagnostics = new VoikkoDiagnostics(5, 2, 2);
+        diagnostics.recordMiss("kissa");
+        diagnostics.recordEviction("kissa");
+        diagnostics.recordMiss("kissa");
+        diagnostics.recordMiss("koira");
+
+        assertEquals("[kissa=2, koira=1]", diagnostics.getTopMisses().toString());
+        assertEquals("[kissa=1]", diagnostics.getTopReloads().toString());
+
+        // Only the most recently evicted keys are remembered
+        diagnostics.recordEviction("hevonen");
+        diagnostics.recordEviction("lehmä");
+        diagnostics.recordEviction("lammas");
+        diagnostics.recordMiss("hevonen");
+        diagnostics.recordMiss("lehmä");
+        List<String> reloads = new ArrayList<String>();
+        for (HeavyHitters.Entry entry: diagnostics.getTopReloads()) {
+            reloads.add(entry.toString());
+        }
+        Collections.sort(reloads);
+        assertEquals("[kissa=1, lehmä=1]", reloads.toString());
+
+        diagnostics.recordAnalysis("kissa", 1000000);
+        diagnostics.recordAnalysis("koira", 3000000);
+        diagnostics.recordAnalysis("hevonen", 2000000);
+        diagnostics.recordAnalysis("lehmä", 500000);
+
+        assertEquals("[koira=3.0ms, hevonen=2.0ms]", diagnostics.getSlowestAnalyses().toString());
+    }
+
+    /**
+     * Tests that misses are not tracked when only slow calls are recorded
+     */
+    @Test
+    public void testSlowestOnly()
+    {
+        VoikkoDiagnostics diagnostics = new VoikkoDiagnostics(0, 1, 2);
+        diagnostics.recordMiss("kissa");
+        diagnostics.recordEviction("kissa");
+        diagnostics.recordMiss("kissa");
+        diagnostics.recordAnalysis("kissa", 1000000);
+
+        assertEquals("[]", diagnostics.getTopMisses().toString());
+        assertEquals("[]", diagnostics.getTopReloads().toString());
+        assertEquals("[kissa=1.0ms]", diagnostics.getSlowestAnalyses().toString());
+    }
+}
@@ -46,6 +46,35 @@ public class VoikkoTest
      */
     @Test
     public void testVoikko() throws IOException
+    {
+        LinkedList<Entry<String, String>> tests = getTests();
+
+        for (int i = 0; i < tests.size(); i++) {
+            Entry<String, String> entry = tests.get(i);
+            assertEquals("Testing '" + entry.getKey() + "'", entry.getValue(), getVoikkoWords(entry.getKey(), new BindingWordAnalyzer(new Voikko("fi-x-morphoid"))));
+        }
+    }
+
+    /**
+     * Tests for Voikko using the direct native analyzer
+     */
+    @Test
+    public void testNativeAnalyzer() throws IOException
+    {
+        LinkedList<Entry<String, String>> tests = getTests();
+
+        for (int i = 0; i < tests.size(); i++) {
+            Entry<String, String> entry = tests.get(i);
+            assertEquals("Testing '" + entry.getKey() + "'", entry.getValue(), getVoikkoWords(entry.getKey(), new NativeWordAnalyzer("fi-x-morphoid", null, true, true)));
+        }
+    }
+
+    /**
+     * Get test terms and expected results
+     *
+     * @return List of terms and results
+     */
+    final protected LinkedList<Entry<String, String>> getTests()
     {
         LinkedList<Entry<String, String>> tests = new LinkedList<Entry<String, String>>();
 
@@ -94,21 +123,19 @@ public class VoikkoTest
             ""
         ));
 
-        for (int i = 0; i < tests.size(); i++) {
-            Entry<String, String> entry = tests.get(i);
-            assertEquals("Testing '" + entry.getKey() + "'", entry.getValue(), getVoikkoWords(entry.getKey()));
-        }
+        return tests;
     }
 
     /**
      * Execute Voikko analysis and return results in a string
      *
      * @param term           String to analyze
+     * @param analyzer       Word analyzer to use
      *
      * @return Comma-separated list of results
      * @throws IOException
      */
-    final protected String getVoikkoWords(String term) throws IOException
+    final protected String getVoikkoWords(String term, WordAnalyzer analyzer) throws IOException
     {
         Cache<String, List<CompoundToken>> cache = Caffeine.newBuilder()
             .maximumSize(100)
@@ -118,10 +145,9 @@ public class VoikkoTest
         tokenizer.setReader(new StringReader(term));
         tokenizer.reset();
 
-        Voikko voikko = new Voikko("fi-x-morphoid");
-        VoikkoFilter voikkoFilter = new VoikkoFilter(tokenizer, voikko, true,
+        VoikkoFilter voikkoFilter = new VoikkoFilter(tokenizer, analyzer, true,
             VoikkoFilter.DEFAULT_MIN_WORD_SIZE, VoikkoFilter.DEFAULT_MIN_SUBWORD_SIZE,
-            VoikkoFilter.DEFAULT_MAX_SUBWORD_SIZE, true, cache, 0);
+            VoikkoFilter.DEFAULT_MAX_SUBWORD_SIZE, true, cache, 0, null, null);
 
         String results = "";
 
@@ -132,6 +158,7 @@ public class VoikkoTest
             results += voikkoFilter.termAtt.toString() + " " + voikkoFilter.posIncAtt.getPositionIncrement() + ":" + voikkoFilter.offsetAtt.startOffset() + ":" + voikkoFilter.offsetAtt.endOffset();
         }
         voikkoFilter.close();
+        analyzer.terminate();
 
         return results;
     }
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ * Unit tests for the Voikko worker protocol
+ */
+public class VoikkoWorkerTest
+{
+    /**
+     * Tests that words and analyses survive a round trip
+     */
+    @Test
+    public void testProtocol() throws IOException
+    {
+        List<String> words = Arrays.asList("kyminsanomat", "totalgibberish", "pöytäkirja");
+        List<List<WordAnalysis>> analyses = new ArrayList<List<WordAnalysis>>();
+        analyses.add(Arrays.asList(
+            new WordAnalysis("kyminsanoma", "+kymi(kymi)+n(n)+sanoma(sanoma)"),
+            new WordAnalysis("kyminsanoma", null)
+        ));
+        analyses.add(Collections.<WordAnalysis>emptyList());
+        analyses.add(Arrays.asList(new WordAnalysis(null, "+pöytä(pöytä)+kirja(kirja)")));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(VoikkoWorker.READY);
+        VoikkoWorker.writeWords(out, words);
+        VoikkoWorker.writeWords(out, Collections.<String>emptyList());
+        VoikkoWorker.writeAnalyses(out, analyses);
+        out.flush();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        VoikkoWorker.readReady(in);
+        assertEquals(words, VoikkoWorker.readWords(in));
+        assertEquals(Collections.emptyList(), VoikkoWorker.readWords(in));
+        assertEquals(analyses, VoikkoWorker.readAnalyses(in, words.size()));
+        assertNull(VoikkoWorker.readWords(in));
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2026 University of Helsinki (The National Library of Finland)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fi.nationallibrary.ndl.solrvoikko2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.puimula.libvoikko.VoikkoException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * Unit tests for the worker pool using {@link StubVoikkoWorker} helpers
+ */
+public class WorkerPoolWordAnalyzerTest
+{
+    private static WorkerPoolWordAnalyzer createPool(int workerCount, int startupTimeout, int timeout, String... args)
+    {
+        List<String> command = WorkerPoolWordAnalyzer.buildCommand(StubVoikkoWorker.class,
+            WorkerPoolWordAnalyzer.DEFAULT_JVM_OPTIONS, "", Arrays.asList(args));
+        return WorkerPoolWordAnalyzer.getShared(command, workerCount, startupTimeout, timeout,
+            WorkerPoolWordAnalyzer.DEFAULT_IDLE_TIMEOUT);
+    }
+
+    private static String analyze(WordAnalyzer analyzer, String word)
+    {
+        List<WordAnalysis> analyses = analyzer.analyze(word);
+        return analyses != null ? analyses.get(0).baseform : null;
+    }
+
+    /**
+     * Tests that a helper that dies is restarted and that words that keep
+     * killing it are reported as failed
+     */
+    @Test
+    public void testCrash()
+    {
+        WorkerPoolWordAnalyzer pool = createPool(1, 30000, 30000);
+        try {
+            assertEquals("kissa_base", analyze(pool, "kissa"));
+            assertNull(pool.analyze("crash"));
+            assertEquals("koira_base", analyze(pool, "koira"));
+        } finally {
+            pool.terminate();
+        }
+    }
+
+    /**
+     * Tests that a helper that does not answer in time is killed
+     */
+    @Test
+    public void testHang()
+    {
+        WorkerPoolWordAnalyzer pool = createPool(1, 30000, 500);
+        try {
+            assertEquals("kissa_base", analyze(pool, "kissa"));
+            final long start = System.nanoTime();
+            assertNull(pool.analyze("hang"));
+            assertTrue(System.nanoTime() - start < 20000000000L);
+            assertEquals("koira_base", analyze(pool, "koira"));
+        } finally {
+            pool.terminate();
+        }
+    }
+
+    /**
+     * Tests that a slow start counts against the startup timeout only
+     */
+    @Test
+    public void testStartupTimeout()
+    {
+        WorkerPoolWordAnalyzer pool = createPool(1, 30000, 500, "1500");
+        try {
+            assertEquals("kissa_base", analyze(pool, "kissa"));
+        } finally {
+            pool.terminate();
+        }
+        pool = createPool(1, 500, 30000, "10000");
+        try {
+            assertNull(pool.analyze("kissa"));
+        } finally {
+            pool.terminate();
+        }
+    }
+
+    /**
+     * Tests that requests queued while the helper is busy share a round trip
+     */
+    @Test
+    public void testBatching() throws Exception
+    {
+        final WorkerPoolWordAnalyzer pool = createPool(1, 30000, 30000);
+        try {
+            assertEquals("kissa_base", analyze(pool, "kissa"));
+            Thread slow = new Thread(() -> pool.analyze("slow"));
+            slow.start();
+            Thread.sleep(200);
+
+            final List<WordAnalysis> results = Collections.synchronizedList(new ArrayList<WordAnalysis>());
+            List<Thread> threads = new ArrayList<Thread>();
+            for (String word: Arrays.asList("hevonen", "lehmä", "lammas")) {
+                Thread thread = new Thread(() -> results.addAll(pool.analyze(word)));
+                thread.start();
+                threads.add(thread);
+            }
+            slow.join();
+            for (Thread thread: threads) {
+                thread.join();
+            }
+
+            assertEquals(3, results.size());
+            for (WordAnalysis analysis: results) {
+                assertEquals("3", analysis.wordbases);
+            }
+        } finally {
+            pool.terminate();
+        }
+    }
+
+    /**
+     * Tests that pools are shared and stopped when the last reference is released
+     */
+    @Test
+    public void testRefCount()
+    {
+        WorkerPoolWordAnalyzer first = createPool(2, 30000, 30000);
+        WorkerPoolWordAnalyzer second = createPool(2, 30000, 30000);
+        assertSame(first, second);
+
+        first.terminate();
+        assertEquals("kissa_base", analyze(second, "kissa"));
+
+        second.terminate();
+        try {
+            second.analyze("kissa");
+            fail("Expected VoikkoException");
+        } catch (VoikkoException e) {
+            // Expected
+        }
+
+        WorkerPoolWordAnalyzer third = createPool(2, 30000, 30000);
+        assertNotSame(first, third);
+        third.terminate();
+    }
+}